@@ -8,7 +8,15 @@ import android.content.Context;
 import android.util.Log;
 import android.util.Pair;
 
+import com.quicinc.soundclassification.audio.PcmConversion;
+import com.quicinc.soundclassification.audio.WavReader;
+import com.quicinc.soundclassification.metrics.PipelineMetrics;
+import com.quicinc.soundclassification.postprocess.EventTimeline;
+import com.quicinc.soundclassification.postprocess.ScoreAggregator;
+import com.quicinc.soundclassification.postprocess.TopKResult;
 import com.quicinc.soundclassification.tflite.AIHubDefaults;
+import com.quicinc.soundclassification.tflite.ModelAssetRegistry;
+import com.quicinc.soundclassification.tflite.StartupTrace;
 import com.quicinc.soundclassification.tflite.TFLiteHelpers;
 
 import org.tensorflow.lite.DataType;
@@ -17,10 +25,9 @@ import org.tensorflow.lite.Interpreter;
 import org.tensorflow.lite.Tensor;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -28,10 +35,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.stream.Collectors;
 
-public class SoundClassification implements AutoCloseable {
+/**
+ * YAMNet classifier backed by one TFLite interpreter.
+ *
+ * Not thread-safe: the interpreter, the tensor arena and the timing fields belong to whichever
+ * thread currently uses the instance. Share instances through a {@link ClassifierPool}.
+ */
+public class SoundClassification implements WindowClassifier, AutoCloseable {
     private static final String TAG = "SoundClassification";
     private final Interpreter tfLiteInterpreter;
     private final Map<TFLiteHelpers.DelegateType, Delegate> tfLiteDelegateStore;
@@ -39,9 +52,15 @@ public class SoundClassification implements AutoCloseable {
     private final int[] inputShape;
     private final DataType inputType;
     private final DataType outputType;
+    private final TensorArena tensorArena;
+    private final TopKResult topKResult;
     private long preprocessingTime;
     private long postprocessingTime;
+    private long warmUpTime;
+    private long inferenceStartTime;
+    private PipelineMetrics metrics;
     private static final int TOPK = 3;
+    private static final int SAMPLE_RATE = 16000;
 //    private final SoundProcessor soundProcessor;
     // ImageProcessor라는 tflite의 모듈이 있는거라서 sound는 따로 없음
 
@@ -60,17 +79,34 @@ public class SoundClassification implements AutoCloseable {
                                String modelPath,
                                String labelsPath,
                                TFLiteHelpers.DelegateType[][] delegatePriorityOrder) throws IOException, NoSuchAlgorithmException {
+        this(context, modelPath, labelsPath, delegatePriorityOrder, AIHubDefaults.numCPUThreads);
+    }
+
+    /**
+     * Create a classifier with an explicit CPU thread count, e.g. 1 when several classifiers run in parallel.
+     *
+     * @param numCPUThreads Number of CPU threads the interpreter uses for layers on CPU.
+     * @see #SoundClassification(Context, String, String, TFLiteHelpers.DelegateType[][])
+     */
+    public SoundClassification(Context context,
+                               String modelPath,
+                               String labelsPath,
+                               TFLiteHelpers.DelegateType[][] delegatePriorityOrder,
+                               int numCPUThreads) throws IOException, NoSuchAlgorithmException {
         // Load labels
+        StartupTrace.Span labelsSpan = StartupTrace.begin("labels", labelsPath);
         try (BufferedReader labelsFile = new BufferedReader(new InputStreamReader(context.getAssets().open(labelsPath)))) {
             labelList = labelsFile.lines().collect(Collectors.toCollection(ArrayList::new));
+        } finally {
+            labelsSpan.end();
         }
 
-        // Load TF Lite model
-        Pair<MappedByteBuffer, String> modelAndHash = TFLiteHelpers.loadModelFile(context.getAssets(), modelPath);
+        // Load TF Lite model (mapped and hashed once per process, shared by all interpreters)
+        Pair<MappedByteBuffer, String> modelAndHash = ModelAssetRegistry.getModel(context, modelPath);
         Pair<Interpreter, Map<TFLiteHelpers.DelegateType, Delegate>> iResult = TFLiteHelpers.CreateInterpreterAndDelegatesFromOptions(
             modelAndHash.first,
             delegatePriorityOrder,
-            AIHubDefaults.numCPUThreads,
+            numCPUThreads,
             context.getApplicationInfo().nativeLibraryDir,
             context.getCacheDir().getAbsolutePath(),
             modelAndHash.second
@@ -111,6 +147,13 @@ public class SoundClassification implements AutoCloseable {
         outputType = outputTensor.dataType();
         assert outputType == DataType.FLOAT32; // YAMNet outputs float32 probabilities
 
+        // 윈도우 길이는 모델 입력의 마지막 차원에서 결정 (YAMNet: [15600] 또는 [1, 15600])
+        windowSize = inputShape[inputShape.length - 1];
+        stride = windowSize / 2;
+
+        // 추론마다 버퍼를 새로 할당하지 않도록 입출력 버퍼를 미리 할당
+        tensorArena = new TensorArena(windowSize, labelList.size());
+        topKResult = new TopKResult(labelList, TOPK);
 
 //
 //    // Set-up preprocessor
@@ -130,6 +173,45 @@ public class SoundClassification implements AutoCloseable {
         }
     }
 
+    /**
+     * Run synthetic inferences so the first real window does not pay for GPU shader compilation,
+     * QNN graph finalization and XNNPack weight packing. Call before the classifier is handed out.
+     *
+     * @param runs Number of inferences; the first is on silence, the rest on low-level noise.
+     * @return time spent warming up, in nanoseconds.
+     */
+    public long warmUp(int runs) {
+        StartupTrace.Span span = StartupTrace.begin("warmUp", runs + " runs");
+        long start = System.nanoTime();
+        float[] window = new float[windowSize];
+        Random random = new Random(0);
+        for (int i = 0; i < runs; i++) {
+            runInference(window, 0, windowSize);
+            for (int j = 0; j < windowSize; j++) {
+                window[j] = (random.nextFloat() - 0.5f) * 0.01f;
+            }
+        }
+        warmUpTime = System.nanoTime() - start;
+        span.end();
+        Log.i(TAG, "Warm-up (" + runs + " runs): " + warmUpTime / 1000000 + " ms");
+        return warmUpTime;
+    }
+
+    /**
+     * @return time spent in {@link #warmUp(int)} in nanoseconds, or 0 if it was not run.
+     */
+    public long getWarmUpTime() {
+        return warmUpTime;
+    }
+
+    /**
+     * Record input copy, inference and postprocessing latencies into {@code metrics}, e.g. while this
+     * classifier serves the live pipeline. Pass null to stop (offline analysis should not be mixed in).
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * @return last preprocessing time in microseconds.
      */
@@ -147,6 +229,13 @@ public class SoundClassification implements AutoCloseable {
         return tfLiteInterpreter.getLastNativeInferenceDurationNanoseconds();
     }
 
+    /**
+     * @return {@link System#nanoTime()} at which the last {@link #runInference(float[], int, int)} started.
+     */
+    public long getLastInferenceStartTime() {
+        return inferenceStartTime;
+    }
+
     /**
      * @return last postprocessing time in microseconds.
      */
@@ -163,18 +252,9 @@ public class SoundClassification implements AutoCloseable {
         long prepStartTime = System.nanoTime();
 
         // Normalize audio data to range [-1.0, 1.0]
-//        float maxAmplitude = Arrays.stream(audioData).max().orElse(1.0f);
-        float maxAmplitude = 1.0f;
-        for (float val : audioData) {
-            if (val > maxAmplitude) maxAmplitude = val;
-        }
-
-        for (int i = 0; i < audioData.length; i++) {
-            audioData[i] /= maxAmplitude;
-        }
+        PcmConversion.normalizePeak(audioData, 0, audioData.length);
 
         preprocessingTime = System.nanoTime() - prepStartTime;
-        Log.d(TAG, "Preprocessing Time: " + preprocessingTime / 1000000 + " ms");
 
         return audioData;
     }
@@ -184,112 +264,144 @@ public class SoundClassification implements AutoCloseable {
     /**
      * Reads the output buffers on tfLiteModel and processes them into readable output classes.
      *
-     * @return Predicted object class names, in order of confidence (highest confidence first).
+     * @return Predicted classes, in order of confidence (highest confidence first).
+     *         The result object is reused by the next prediction on this classifier.
      */
 
-    private List<String> postprocess(float[] outputScores) {
+    private TopKResult postprocess(float[] outputScores) {
         long postStartTime = System.nanoTime();
 
         // Find top K indices
-        List<Integer> topKIndices = findTopKIndices(outputScores, TOPK);
-        List<String> topLabels = topKIndices.stream().map(labelList::get).collect(Collectors.toList());
+        topKResult.select(outputScores);
 
         postprocessingTime = System.nanoTime() - postStartTime;
-        Log.d(TAG, "Postprocessing Time: " + postprocessingTime / 1000000 + " ms");
+        if (metrics != null) {
+            metrics.record(PipelineMetrics.Stage.POSTPROCESS, postprocessingTime);
+        }
 
-        return topLabels;
+        return topKResult;
     }
 
 
     /**
-     * Predict the most likely classes of the object in the image.
+     * Predict the most likely classes of the sound in the audio window.
      *
-//     * @param image RGBA-8888 bitmap image to predict class of.
-     * @return Predicted object class names, in order of confidence (highest confidence first).
+     * @param audioData One model window of float PCM samples. Normalized in place.
+     * @return Predicted classes, in order of confidence (highest confidence first).
+     *         The result object is reused by the next prediction on this classifier.
      */
-    public List<String> predictClassesFromAudio(float[] audioData) {
+    public TopKResult predictClassesFromAudio(float[] audioData) {
         // Preprocessing
         float[] processedAudio = preprocess(audioData);
 
         // Inference
-        float[][] outputScores = new float[1][labelList.size()];
-        tfLiteInterpreter.run(new float[][]{processedAudio}, outputScores);
-
+        float[] outputScores = runInference(processedAudio, 0, processedAudio.length);
 
         // Postprocessing
-        return postprocess(outputScores[0]);
-    }
-
-    private static List<Integer> findTopKIndices(float[] scores, int k) {
-        PriorityQueue<Integer> maxHeap = new PriorityQueue<>((a, b) -> Float.compare(scores[b], scores[a]));
-        for (int i = 0; i < scores.length; i++) {
-            maxHeap.add(i);
-            if (maxHeap.size() > k) {
-                maxHeap.poll();
-            }
-        }
-        List<Integer> topK = new ArrayList<>(maxHeap);
-        Collections.reverse(topK);
-        return topK;
+        return postprocess(outputScores);
     }
 
 
     // 슬라이딩 윈도우 파라미터 설정
-    int windowSize = 15600; // 0.975초의 16kHz 샘플
-    int stride = 7800; // 0.5초마다 슬라이드 (윈도우 크기 절반)
+    private final int windowSize; // 모델 입력 길이 (YAMNet: 0.975초의 16kHz 샘플 = 15600)
+    private final int stride; // 윈도우 크기 절반씩 슬라이드
 
-    public List<String> runSlidingWindowInference(float[] audioData) {
-        int audioLength = audioData.length;
-        List<float[]> allResults = new ArrayList<>();
+    /**
+     * @return number of samples the model consumes per inference.
+     */
+    @Override
+    public int getWindowSize() {
+        return windowSize;
+    }
 
-        // 슬라이딩 윈도우 방식으로 오디오 데이터를 잘라서 모델에 넣음
-        for (int start = 0; start + windowSize <= audioLength; start += stride) {
-            float[] window = new float[windowSize];
-            System.arraycopy(audioData, start, window, 0, windowSize); // 오디오 데이터 슬라이싱
+    /**
+     * @return default number of samples between sliding windows.
+     */
+    public int getStride() {
+        return stride;
+    }
 
-            // 여기에서 window 배열을 모델에 넣어 inference 수행
-            float[] result = runInference(window);
-            allResults.add(result);
-        }
+    /**
+     * @return number of classes in the model output.
+     */
+    @Override
+    public int getNumClasses() {
+        return labelList.size();
+    }
 
-        if (allResults.isEmpty()) return Collections.emptyList();
+    /**
+     * @return class labels, indexed like the model output.
+     */
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(labelList);
+    }
 
-        // 결과 평균
-        int numClasses = allResults.get(0).length;
-        float[] averagedScores = new float[numClasses];
-        for (float[] result : allResults) {
-            for (int i = 0; i < numClasses; i++) {
-                averagedScores[i] += result[i];
-            }
-        }
-        for (int i = 0; i < numClasses; i++) {
-            averagedScores[i] /= allResults.size();
-        }
+    public List<String> runSlidingWindowInference(float[] audioData) {
+        // 윈도우별 결과를 저장하지 않고 누적합만 유지 (메모리 일정)
+        float[] averagedScores = SlidingWindowInference.averageScores(this, stride, audioData, 0, audioData.length);
+        if (averagedScores == null) return Collections.emptyList();
 
         Log.d("outputs", Arrays.toString(averagedScores));
 
         // Top-K 클래스 선택
-        List<Integer> topKIndices = findTopKIndices(averagedScores, TOPK);
-        return topKIndices.stream().map(labelList::get).collect(Collectors.toList());
+        return new TopKResult(labelList, TOPK).select(averagedScores).toLabelList();
     }
 
-    float[] runInference(float[] inputData) {
-        // 입력 데이터를 float형 배열로 변환하여 모델에 넣기
-        ByteBuffer inputBuffer = ByteBuffer.allocateDirect(4 * inputData.length);
-        inputBuffer.order(ByteOrder.nativeOrder());
-        for (float f : inputData) {
-            inputBuffer.putFloat(f);
-        }
+    /**
+     * Classify a recording on disk without loading it into memory.
+     *
+     * @param audioFile 16 kHz WAV (PCM16 or float, mono or stereo) or headerless 16-bit PCM.
+     * @return Top-K labels of the mean score over all windows.
+     * @throws IOException If the file cannot be read, or its format is unsupported.
+     */
+    public List<String> runSlidingWindowInference(File audioFile) throws IOException {
+        ScoreAggregator mean = ScoreAggregator.mean(labelList.size());
+        if (analyzeRecording(audioFile, mean, null) == 0) return Collections.emptyList();
+        return new TopKResult(labelList, TOPK).select(mean.result()).toLabelList();
+    }
 
-        // 모델의 입력과 출력 초기화
-//        float[][] output = new float[1][521]; // 예: 521개의 출력 (클래스 수)
+    /**
+     * Classify every window of a recording on disk in constant memory.
+     *
+     * @param audioFile  16 kHz WAV (PCM16 or float, mono or stereo) or headerless 16-bit PCM.
+     * @param aggregator Per-class summary (mean, max, percentile, counts) over all windows.
+     * @param timeline   When each label group was heard. May be null.
+     * @return number of windows classified.
+     * @throws IOException If the file cannot be read, or its format is unsupported.
+     */
+    public int analyzeRecording(File audioFile, ScoreAggregator aggregator, EventTimeline timeline) throws IOException {
+        try (WavReader reader = WavReader.open(audioFile)) {
+            if (reader.getSampleRate() != SAMPLE_RATE) {
+                throw new IOException("Expected " + SAMPLE_RATE + " Hz audio, got " + reader.getSampleRate() + " Hz");
+            }
+            return SlidingWindowInference.analyze(this, stride, reader, aggregator, timeline);
+        }
+    }
 
-        float[][] output = new float[1][labelList.size()];
-        // 모델 실행
-        tfLiteInterpreter.run(inputBuffer, output);
+    float[] runInference(float[] inputData) {
+        return runInference(inputData, 0, inputData.length);
+    }
 
-        // 결과 반환
-        return output[0];
+    /**
+     * Run the model on {@code length} samples starting at {@code offset}.
+     * Allocation-free: the input is bulk-copied into a preallocated direct buffer.
+     *
+     * @return per-class scores. The array is reused by the next inference on this classifier.
+     */
+    @Override
+    public float[] runInference(float[] inputData, int offset, int length) {
+        inferenceStartTime = System.nanoTime();
+        if (metrics == null) {
+            tensorArena.loadInput(inputData, offset, length);
+            return tensorArena.run(tfLiteInterpreter);
+        }
+        long start = inferenceStartTime;
+        tensorArena.loadInput(inputData, offset, length);
+        long loaded = System.nanoTime();
+        float[] scores = tensorArena.run(tfLiteInterpreter);
+        metrics.record(PipelineMetrics.Stage.PREPROCESS, loaded - start);
+        metrics.record(PipelineMetrics.Stage.INFERENCE, System.nanoTime() - loaded);
+        return scores;
     }
 
     int handleInferenceResult(float[] result) {
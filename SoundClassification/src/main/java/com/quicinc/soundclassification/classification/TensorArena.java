@@ -0,0 +1,78 @@
+package com.quicinc.soundclassification.classification;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Preallocated input / output buffers for one single-input, single-output float32 interpreter.
+ *
+ * Everything the interpreter reads or writes lives in direct buffers allocated once, and samples are
+ * moved with bulk {@link FloatBuffer} puts and gets, so steady-state inference allocates nothing on
+ * our side of the TF Lite API.
+ *
+ * An arena belongs to exactly one interpreter and is not thread-safe.
+ */
+class TensorArena {
+    private final ByteBuffer inputBytes;
+    private final FloatBuffer input;
+    private final ByteBuffer outputBytes;
+    private final FloatBuffer output;
+    private final float[] scores;
+
+    // Argument holders for Interpreter.runForMultipleInputsOutputs, reused so run() does not box or allocate.
+    private final Object[] inputs;
+    private final Map<Integer, Object> outputs = new HashMap<>();
+
+    /**
+     * @param inputSize  Number of float32 elements in the input tensor.
+     * @param outputSize Number of float32 elements in the output tensor.
+     */
+    TensorArena(int inputSize, int outputSize) {
+        inputBytes = ByteBuffer.allocateDirect(4 * inputSize).order(ByteOrder.nativeOrder());
+        input = inputBytes.asFloatBuffer();
+        outputBytes = ByteBuffer.allocateDirect(4 * outputSize).order(ByteOrder.nativeOrder());
+        output = outputBytes.asFloatBuffer();
+        scores = new float[outputSize];
+
+        inputs = new Object[] { inputBytes };
+        outputs.put(0, outputBytes);
+    }
+
+    /**
+     * @return number of floats the input tensor holds.
+     */
+    int getInputSize() {
+        return input.capacity();
+    }
+
+    /**
+     * Copy one full input tensor's worth of samples into the input buffer.
+     */
+    void loadInput(float[] samples, int offset, int length) {
+        if (length != input.capacity()) {
+            throw new IllegalArgumentException("Expected " + input.capacity() + " input samples, got " + length);
+        }
+        input.clear();
+        input.put(samples, offset, length);
+    }
+
+    /**
+     * Run the interpreter on the loaded input.
+     *
+     * @return the output scores. The array is reused by the next call.
+     */
+    float[] run(Interpreter interpreter) {
+        inputBytes.rewind();
+        outputBytes.rewind();
+        interpreter.runForMultipleInputsOutputs(inputs, outputs);
+
+        output.rewind();
+        output.get(scores);
+        return scores;
+    }
+}
@@ -0,0 +1,143 @@
+package com.quicinc.soundclassification.service;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.AudioTimestamp;
+import android.os.Process;
+import android.util.Log;
+
+import com.quicinc.soundclassification.audio.CaptureClock;
+import com.quicinc.soundclassification.audio.HopScheduler;
+import com.quicinc.soundclassification.audio.PcmRingBuffer;
+
+/**
+ * The only thread that reads from the microphone.
+ *
+ * Performs blocking reads from the {@link AudioRecord} straight into a {@link PcmRingBuffer},
+ * so every captured sample is seen by every consumer of the ring (loudness, classification, ...)
+ * and no consumer issues its own {@code AudioRecord.read}.
+ *
+ * Reads are cut at hop boundaries and each publish is reported to a {@link HopScheduler}, so the
+ * classification thread is woken the moment a new window is complete.
+ *
+ * After every read the {@link CaptureClock} is re-anchored, so consumers can tell when any sample
+ * in the ring was captured. HAL frame positions keep counting through overruns while ring positions
+ * only count samples that were read, so the offset between the two is tracked and every anchor is
+ * translated to a ring position.
+ */
+class AudioCaptureThread extends Thread {
+    private static final String TAG = "AudioCaptureThread";
+
+    private final AudioRecord audioRecord;
+    private final PcmRingBuffer ringBuffer;
+    private final HopScheduler hopScheduler;
+    private final CaptureClock captureClock;
+    private final AudioTimestamp timestamp = new AudioTimestamp();
+    private final int chunkSize;
+    private final short[] pcm16Chunk;
+    // HAL frames that never reached the ring (lost to overruns): ring position = HAL position - halOffset
+    private long halOffset;
+    private long framesDropped;
+    private volatile boolean running = true;
+
+    /**
+     * @param audioRecord Initialized recorder (mono, PCM float or PCM 16-bit). Recording is started by this thread.
+     * @param ringBuffer   Ring to publish samples into. This thread becomes its only producer.
+     * @param hopScheduler Notified after every publish.
+     * @param captureClock Re-anchored after every publish. Its stream positions are ring positions.
+     * @param chunkSize    Largest number of samples to request per blocking read. Must not exceed the ring guard size.
+     */
+    AudioCaptureThread(AudioRecord audioRecord, PcmRingBuffer ringBuffer, HopScheduler hopScheduler, CaptureClock captureClock, int chunkSize) {
+        super("AudioCaptureThread");
+        if (chunkSize > ringBuffer.guardSize()) {
+            throw new IllegalArgumentException("Capture chunk " + chunkSize + " exceeds ring guard " + ringBuffer.guardSize());
+        }
+        this.audioRecord = audioRecord;
+        this.ringBuffer = ringBuffer;
+        this.hopScheduler = hopScheduler;
+        this.captureClock = captureClock;
+        this.chunkSize = chunkSize;
+        this.pcm16Chunk = audioRecord.getAudioFormat() == AudioFormat.ENCODING_PCM_FLOAT ? null : new short[chunkSize];
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        audioRecord.startRecording();
+
+        while (running) {
+            // Never read past the next hop boundary, so the hop is signalled as soon as it is complete.
+            int request = Math.min(chunkSize, hopScheduler.samplesUntilNextHop(ringBuffer.writePosition()));
+            int read;
+            if (pcm16Chunk == null) {
+                // Read floats in place; no intermediate buffer.
+                read = audioRecord.read(
+                        ringBuffer.producerArray(),
+                        ringBuffer.writeOffset(),
+                        ringBuffer.contiguousWritable(request),
+                        AudioRecord.READ_BLOCKING);
+                if (read > 0) {
+                    ringBuffer.commit(read);
+                }
+            } else {
+                read = audioRecord.read(pcm16Chunk, 0, request, AudioRecord.READ_BLOCKING);
+                if (read > 0) {
+                    ringBuffer.write(pcm16Chunk, 0, read);
+                }
+            }
+
+            if (read < 0) {
+                Log.e(TAG, "AudioRecord read failed: " + read);
+                break;
+            }
+            long published = ringBuffer.writePosition();
+            // Frame positions count from startRecording(), like ring positions. Without a HAL timestamp,
+            // fall back to the time the read returned, which hides the input buffering latency.
+            if (audioRecord.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC) == AudioRecord.SUCCESS) {
+                captureClock.update(toRingPosition(timestamp.framePosition, published), timestamp.nanoTime);
+            } else {
+                captureClock.update(published, System.nanoTime());
+            }
+            hopScheduler.onPublished(published);
+        }
+
+        audioRecord.stop();
+    }
+
+    /**
+     * Translate a HAL frame position to a ring position, updating the HAL-to-ring offset when the
+     * captured-but-unread backlog it implies is impossible for the record buffer.
+     *
+     * @param framePosition HAL frame position from the latest timestamp.
+     * @param published     Ring position after the latest read.
+     */
+    private long toRingPosition(long framePosition, long published) {
+        long backlog = framePosition - halOffset - published;
+        int bufferFrames = audioRecord.getBufferSizeInFrames();
+        if (backlog > bufferFrames) {
+            // Overrun: the buffer holds at most bufferFrames unread frames, the rest were dropped.
+            long dropped = backlog - bufferFrames;
+            halOffset += dropped;
+            framesDropped += dropped;
+            Log.w(TAG, "Capture overrun: " + dropped + " frames dropped (" + framesDropped + " total)");
+        } else if (backlog < -bufferFrames) {
+            // HAL position restarted (e.g. the input was rerouted): assume nothing is waiting to be read.
+            halOffset = framePosition - published;
+        }
+        return framePosition - halOffset;
+    }
+
+    /**
+     * Stop capturing and wait for the thread to exit.
+     */
+    void shutdown() {
+        running = false;
+        // Unblocks a pending READ_BLOCKING read.
+        audioRecord.stop();
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,72 +1,259 @@
 package com.quicinc.soundclassification.service;
 
 import android.content.Context;
+import android.util.Log;
 
+import com.quicinc.soundclassification.classification.ClassifierPool;
+import com.quicinc.soundclassification.classification.ParallelSlidingWindowInference;
 import com.quicinc.soundclassification.classification.SoundClassification;
 import com.quicinc.soundclassification.tflite.AIHubDefaults;
+import com.quicinc.soundclassification.tflite.DelegateCalibrator;
+import com.quicinc.soundclassification.tflite.StartupTrace;
+import com.quicinc.soundclassification.tflite.TFLiteHelpers;
 
+import java.io.File;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.quicinc.soundclassification.R;
 
 public class ClassifierHandler {
-    private static SoundClassification defaultDelegateClassifier = null;
-    private static SoundClassification cpuOnlyClassifier = null;
-    private static boolean initialized = false;
+    private static final String TAG = "ClassifierHandler";
 
-    public interface OnClassifierReadyCallback {
-        void onReady();
-        void onError(Exception e);
+    /**
+     * Delegate configurations the app can classify with.
+     */
+    public enum Variant {
+        /** AI Hub default delegate order (NPU, GPU, then CPU). */
+        DEFAULT_DELEGATES,
+        /** XNNPack on CPU only. */
+        CPU_ONLY
     }
 
-    public static void createAsync(Context context, OnClassifierReadyCallback callback) {
-        if (initialized) {
-            callback.onReady();
-            return;
+    // 마지막 사용자가 반납한 뒤 풀을 닫기까지 기다리는 시간 (곧바로 다시 쓰면 재생성하지 않음)
+    private static final long IDLE_CLOSE_DELAY_MS = 60_000;
+    private static final String STARTUP_TRACE_FILE = "startup_trace.json";
+    // 병렬 분석 시 작업 단위 (약 8초 분량의 윈도우)
+    private static final int PARALLEL_WINDOWS_PER_CHUNK = 16;
+
+    private static final Object lock = new Object();
+    private static final Map<Variant, Entry> entries = new EnumMap<>(Variant.class);
+    // 모델 생성과 유휴 종료를 처리하는 프로세스 전역 스레드 하나
+    private static ScheduledExecutorService registryExecutor;
+
+    private static final class Entry {
+        CompletableFuture<ClassifierPool<SoundClassification>> pool;
+        int refCount;
+        ScheduledFuture<?> idleClose;
+    }
+
+    /**
+     * Get the classifier pool for a variant, creating it on first use.
+     *
+     * Concurrent callers share one creation. Every call must be paired with {@link #release(Variant)},
+     * also when the future fails; once the last holder releases, the pool is closed after an idle delay
+     * unless it is acquired again first. A failed creation is retried by the next acquire.
+     *
+     * @return future completed on a background thread with the pool, once every interpreter is warmed up.
+     */
+    public static CompletableFuture<ClassifierPool<SoundClassification>> acquire(Context context, Variant variant) {
+        Context appContext = context.getApplicationContext();
+        synchronized (lock) {
+            Entry entry = entries.get(variant);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(variant, entry);
+            }
+            entry.refCount++;
+            if (entry.idleClose != null) {
+                entry.idleClose.cancel(false);
+                entry.idleClose = null;
+            }
+            if (entry.pool == null) {
+                Entry created = entry;
+                CompletableFuture<ClassifierPool<SoundClassification>> future =
+                        CompletableFuture.supplyAsync(() -> createPool(appContext, variant), executor());
+                created.pool = future;
+                future.whenComplete((pool, error) -> {
+                    if (error != null) {
+                        synchronized (lock) {
+                            if (created.pool == future) {
+                                created.pool = null;
+                            }
+                        }
+                    }
+                });
+            }
+            return entry.pool;
         }
+    }
 
-        ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
-        backgroundExecutor.execute(() -> {
-            try {
-                String modelAsset = context.getString(R.string.tfLiteModelAsset);
-                String labelAsset = context.getString(R.string.tfLiteLabelsAsset);
+    /**
+     * Give back a reference taken with {@link #acquire(Context, Variant)}.
+     */
+    public static void release(Variant variant) {
+        synchronized (lock) {
+            Entry entry = entries.get(variant);
+            if (entry == null || entry.refCount == 0) {
+                throw new IllegalStateException("Classifier variant released more often than acquired: " + variant);
+            }
+            if (--entry.refCount == 0 && entry.pool != null) {
+                entry.idleClose = executor().schedule(() -> closeIfIdle(entry), IDLE_CLOSE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 
-                defaultDelegateClassifier = new SoundClassification(
-                        context,
-                        modelAsset,
-                        labelAsset,
-                        AIHubDefaults.delegatePriorityOrder
-                );
+    /**
+     * Start creating a variant in the background so a later {@link #acquire} finds it ready.
+     * The pool stays loaded for the idle delay.
+     */
+    public static CompletableFuture<ClassifierPool<SoundClassification>> prefetch(Context context, Variant variant) {
+        CompletableFuture<ClassifierPool<SoundClassification>> future = acquire(context, variant);
+        future.whenComplete((pool, error) -> release(variant));
+        return future;
+    }
+
+    private static void closeIfIdle(Entry entry) {
+        CompletableFuture<ClassifierPool<SoundClassification>> pool;
+        synchronized (lock) {
+            if (entry.refCount > 0 || entry.pool == null) {
+                return;
+            }
+            pool = entry.pool;
+            entry.pool = null;
+            entry.idleClose = null;
+        }
+        pool.thenAccept(ClassifierPool::close);
+    }
 
-                cpuOnlyClassifier = new SoundClassification(
+    private static ScheduledExecutorService executor() {
+        synchronized (lock) {
+            if (registryExecutor == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "ClassifierRegistry");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.setRemoveOnCancelPolicy(true);
+                registryExecutor = executor;
+            }
+            return registryExecutor;
+        }
+    }
+
+    private static ClassifierPool<SoundClassification> createPool(Context context, Variant variant) {
+        String modelAsset = context.getString(R.string.tfLiteModelAsset);
+        String labelAsset = context.getString(R.string.tfLiteLabelsAsset);
+        StartupTrace.Span span = StartupTrace.begin("pool", variant.name());
+        try {
+            if (variant == Variant.DEFAULT_DELEGATES) {
+                TFLiteHelpers.DelegateType[][] order = AIHubDefaults.delegatePriorityOrder;
+                if (context.getResources().getBoolean(R.bool.calibrateDelegates)) {
+                    // 첫 실행 시 조합별 측정 후 가장 빠른 조합을 저장, 이후에는 저장된 결과를 바로 사용
+                    order = DelegateCalibrator.resolvePriorityOrder(context, modelAsset, order);
+                }
+                return createPool(
                         context,
                         modelAsset,
                         labelAsset,
-                        AIHubDefaults.delegatePriorityOrderForDelegates(new HashSet<>())
+                        order,
+                        context.getResources().getInteger(R.integer.defaultDelegatePoolSize)
                 );
-
-                initialized = true;
-                callback.onReady();
-
-            } catch (IOException | NoSuchAlgorithmException e) {
-                callback.onError(e);
             }
-        });
+            return createPool(
+                    context,
+                    modelAsset,
+                    labelAsset,
+                    AIHubDefaults.delegatePriorityOrderForDelegates(new HashSet<>()),
+                    context.getResources().getInteger(R.integer.cpuOnlyPoolSize)
+            );
+        } catch (IOException | NoSuchAlgorithmException e) {
+            span.end(false);
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            span.end(false);
+            throw e;
+        } finally {
+            span.end();
+            writeStartupTrace(context);
+        }
     }
 
-    public static boolean isInitialized() {
-        return initialized;
+    private static void writeStartupTrace(Context context) {
+        // 기기별 콜드 스타트 분석용으로 단계별 소요 시간을 파일로 남김 (files/startup_trace.json)
+        try {
+            StartupTrace.writeTo(new File(context.getFilesDir(), STARTUP_TRACE_FILE));
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write startup trace: " + e.getMessage());
+        }
     }
 
-    public static SoundClassification getDefaultClassifier() {
-        return defaultDelegateClassifier;
+    /**
+     * Build a parallel analyzer for long recordings: one single-threaded CPU (XNNPack) classifier per worker.
+     * Blocks while the interpreters are created; call it off the main thread. Close the result when done.
+     *
+     * @param workers Number of workers, typically the number of CPU cores.
+     */
+    public static ParallelSlidingWindowInference createParallelInference(Context context, int workers) throws IOException, NoSuchAlgorithmException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker: " + workers);
+        }
+        String modelAsset = context.getString(R.string.tfLiteModelAsset);
+        String labelAsset = context.getString(R.string.tfLiteLabelsAsset);
+
+        List<SoundClassification> classifiers = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers; i++) {
+                classifiers.add(new SoundClassification(
+                        context,
+                        modelAsset,
+                        labelAsset,
+                        AIHubDefaults.delegatePriorityOrderForDelegates(new HashSet<>()),
+                        1
+                ));
+            }
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            for (SoundClassification classifier : classifiers) {
+                classifier.close();
+            }
+            throw e;
+        }
+        SoundClassification first = classifiers.get(0);
+        return new ParallelSlidingWindowInference(classifiers, first.getStride(), PARALLEL_WINDOWS_PER_CHUNK);
     }
 
-    public static SoundClassification getCpuOnlyClassifier() {
-        return cpuOnlyClassifier;
+    private static ClassifierPool<SoundClassification> createPool(Context context,
+                                                                  String modelAsset,
+                                                                  String labelAsset,
+                                                                  TFLiteHelpers.DelegateType[][] delegatePriorityOrder,
+                                                                  int size) throws IOException, NoSuchAlgorithmException {
+        List<SoundClassification> classifiers = new ArrayList<>();
+        try {
+            for (int i = 0; i < size; i++) {
+                classifiers.add(new SoundClassification(context, modelAsset, labelAsset, delegatePriorityOrder));
+            }
+            // 풀이 준비 완료로 알려지기 전에 워밍업을 끝내서 첫 실제 추론이 가장 느려지지 않도록 함
+            int warmUpRuns = context.getResources().getInteger(R.integer.warmUpRuns);
+            for (SoundClassification classifier : classifiers) {
+                classifier.warmUp(warmUpRuns);
+            }
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            for (SoundClassification classifier : classifiers) {
+                classifier.close();
+            }
+            throw e;
+        }
+        return new ClassifierPool<>(classifiers);
     }
 }
@@ -7,14 +7,20 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
 import android.content.Context;
+import android.content.BroadcastReceiver;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraManager;
+import android.media.AudioFormat;
 import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.PowerManager;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.util.Log;
@@ -24,34 +30,104 @@ import androidx.core.app.NotificationCompat;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.quicinc.soundclassification.R;
+import com.quicinc.soundclassification.audio.CaptureClock;
+import com.quicinc.soundclassification.audio.EnergyGate;
+import com.quicinc.soundclassification.audio.HopScheduler;
+import com.quicinc.soundclassification.audio.LevelMeter;
+import com.quicinc.soundclassification.audio.PcmRingBuffer;
 import com.quicinc.soundclassification.backups.AudioProcessing;
+import com.quicinc.soundclassification.classification.ClassifierPool;
 import com.quicinc.soundclassification.classification.SoundClassification;
-
-import org.tensorflow.lite.support.audio.TensorAudio;
-import org.tensorflow.lite.support.label.Category;
-import org.tensorflow.lite.task.audio.classifier.AudioClassifier;
-import org.tensorflow.lite.task.audio.classifier.Classifications;
-
+import com.quicinc.soundclassification.metrics.LatencyHistogram;
+import com.quicinc.soundclassification.metrics.PipelineMetrics;
+import com.quicinc.soundclassification.pipeline.DeadlineScheduler;
+import com.quicinc.soundclassification.pipeline.DutyCycleController;
+import com.quicinc.soundclassification.pipeline.SpscSlotQueue;
+import com.quicinc.soundclassification.postprocess.EventDetector;
+import com.quicinc.soundclassification.postprocess.LabelGroupMatcher;
+import com.quicinc.soundclassification.util.PreferenceUtil;
+
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.io.InputStreamReader;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class SoundClassificationService extends Service {
 
     private Handler handler;
-    private AudioClassifier audioClassifier;
-    private TensorAudio audioTensor;
     private AudioRecord audioRecord;
 
+    // Every consumer reads captured audio from this ring; only captureThread reads the microphone.
+    private PcmRingBuffer ringBuffer;
+    private AudioCaptureThread captureThread;
+    // 새 hop(윈도우)이 캡처되는 즉시 분류 스레드를 깨움
+    private HopScheduler hopScheduler;
+    // 조용한 구간에서는 추론을 건너뜀
+    private final EnergyGate energyGate = new EnergyGate(GATE_FFT_SIZE, GATE_ENERGY_MARGIN_DB, GATE_NOVELTY_THRESHOLD, GATE_HANGOVER_HOPS);
+    // 점수 스무딩 + 히스테리시스: 상태가 바뀔 때만 알림
+    private LabelGroupMatcher alertGroups;
+    private EventDetector eventDetector;
+    private boolean loudActive = false;
+    private ClassifierHandler.Variant classifierVariant;
+    private final LevelMeter levelMeter = new LevelMeter();
+    // 단계별 지연 시간 히스토그램 (프로세스 전역, 주기적으로 로그 후 초기화)
+    private static final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    // 추론 단계 -> 전달 단계 (진동/플래시/브로드캐스트가 추론을 막지 않도록)
+    private SpscSlotQueue<AlertCommand> alertQueue;
+    // 알림 큐가 가득 차서 아직 보내지 못한 플래시/화면 초기화 상태 (추론 스레드 전용)
+    private boolean actuationPending;
+    private boolean pendingTorchOn;
+    private boolean pendingClear;
+    private long alertsCoalesced;
+    // 윈도우별 마감 시간: 제때 처리할 수 없으면 건너뛰고 가장 최근 오디오를 처리
+    private DeadlineScheduler deadlineScheduler;
+    // 활동/배터리/발열 상태에 따라 hop 크기를 조절
+    private static volatile DutyCycleController dutyCycle;
+    private DutyCycleController ownDutyCycle;
+    private PowerManager powerManager;
+    private volatile int batteryPercent = 100;
+    private volatile boolean charging;
+    // 링 버퍼 위치 -> 캡처 시각 (알림 지연 = 알림 시각 - 윈도우 마지막 샘플의 캡처 시각)
+    private final CaptureClock captureClock = new CaptureClock(SAMPLE_RATE);
+    private int classifierWindowSize;
+    // 전처리가 늦어 링 버퍼에서 이미 덮어써진 윈도우 수 (분류하지 못하고 건너뜀)
+    private volatile long windowsSkipped;
+    // 같은 이유로 게이트가 판단하지 못하고 건너뛴 블록 수
+    private volatile long gateBlocksSkipped;
+
     ExecutorService backgroundTaskExecutor;
 
-    long classficationInterval = 500;       // 0.5 sec (샘플링 주기)
+    static final long ACTIVE_HOP_MS = 500;          // 소리가 있을 때 분류 간격 (hop 크기)
+    static final long QUIET_HOP_MS = 2000;          // 조용하고 안정적일 때 분류 간격
+    static final long QUIET_AFTER_MS = 10_000;      // 이 시간 동안 활동이 없으면 조용한 모드로 전환
+    static final float CANDIDATE_RATIO = 0.5f;      // 그룹 점수가 임계값의 이 비율을 넘으면 후보로 보고 촘촘하게 분류
     static final float MINIMUM_DISPLAY_THRESHOLD = 0.03F;
+    static final int SAMPLE_RATE = 16000;           // YAMNet 입력 샘플레이트
+    static final int CAPTURE_CHUNK_MS = 100;        // 캡처 스레드의 blocking read 단위
+    static final int RING_BUFFER_WINDOWS = 4;       // 링 버퍼에 보관할 모델 입력 윈도우 수
+    static final int MAX_PENDING_HOPS = 2;          // 분류가 밀릴 때 대기시킬 최대 hop 수 (초과 시 오래된 hop 폐기)
+    static final long CLASSIFIER_LEASE_TIMEOUT_MS = 5000; // 풀의 분류기가 모두 사용 중일 때 기다리는 최대 시간
+    static final int GATE_FFT_SIZE = 512;           // spectral flatness 계산용 FFT 크기
+    static final double GATE_ENERGY_MARGIN_DB = 6;  // 노이즈 플로어 대비 이만큼 커지면 추론
+    static final double GATE_NOVELTY_THRESHOLD = 0.25; // 배경 대비 flatness가 25% 이상 떨어지면 (음조성 소리) 추론
+    static final int GATE_HANGOVER_HOPS = 2;        // 게이트가 열린 뒤 유지할 hop 수
+    static final float DETECTOR_SMOOTHING = 0.5f;   // 점수 EMA 가중치 (새 윈도우 비중)
+    static final float DETECTOR_RELEASE_RATIO = 0.6f; // 해제 임계값 = 그룹 임계값 * 비율
+    static final int DETECTOR_MIN_DURATION_MS = 500; // 상태 변경 전 임계값을 유지해야 하는 시간
+    static final int DETECTOR_COOLDOWN_MS = 5000;   // 같은 그룹 재알림 최소 간격
+    static final long METRICS_REPORT_INTERVAL_MS = 60_000; // 지연 시간 통계를 로그로 남기고 초기화하는 주기
+    static final int PIPELINE_STAGES = 3;           // 캡처 스레드 외의 단계 수 (전처리, 추론, 전달)
+    static final int WINDOW_QUEUE_CAPACITY = 1;     // 추론이 밀릴 때 대기시킬 윈도우 수
+    static final SpscSlotQueue.DropPolicy WINDOW_QUEUE_POLICY = SpscSlotQueue.DropPolicy.DROP_OLDEST; // 가장 최근 오디오 우선
+    static final int ALERT_QUEUE_CAPACITY = 8;      // 전달이 밀릴 때 대기시킬 알림 수
+    static final long WINDOW_DEADLINE_MS = 1000;    // 윈도우 마지막 샘플 캡처 후 결과까지 허용 시간
+    static final int MAX_CONSECUTIVE_LATE_DROPS = 2; // 늦은 윈도우를 연속으로 건너뛰는 최대 수 (이후 늦더라도 처리)
+    static final SpscSlotQueue.DropPolicy ALERT_QUEUE_POLICY = SpscSlotQueue.DropPolicy.BLOCK; // 레이블 알림은 버리지 않음 (나머지는 sendAlert에서 합침)
 
 
     private final String CHANNEL_ID = "AudioClassificationChannel";
@@ -61,14 +137,31 @@ public class SoundClassificationService extends Service {
     public void onCreate() {
         super.onCreate();
 
-        backgroundTaskExecutor = Executors.newSingleThreadExecutor();
+        // 전처리, 추론, 전달 단계에 스레드 하나씩
+        backgroundTaskExecutor = Executors.newFixedThreadPool(PIPELINE_STAGES);
 
         HandlerThread thread = new HandlerThread("AudioThread");
         thread.start();
         handler = new Handler(thread.getLooper());
 
         startForegroundServiceWithNotification();
-        startClassificationLoop();
+
+        // 배터리 잔량/충전 상태와 발열 상태를 hop 조절에 반영 (sticky 브로드캐스트라 현재 상태가 바로 전달됨)
+        powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        powerManager.addThermalStatusListener(thermalListener);
+
+        // ClassifierHandler의 분류기 풀에서 하나를 빌려 서비스가 실행되는 동안 독점 사용
+        // (풀은 처음 요청될 때 한 번만 만들어지고, 서비스 종료 후 일정 시간 쓰이지 않으면 닫힘)
+        classifierVariant = selectVariant();
+        ClassifierHandler.acquire(this, classifierVariant).whenComplete((pool, error) -> {
+            if (error != null) {
+                Log.e("service", "Classifier 초기화 실패", error);
+                stopSelf();
+                return;
+            }
+            handler.post(() -> startClassificationLoop(pool));
+        });
 //        updatePredictionDataAsync();
     }
 
@@ -89,81 +182,610 @@ public class SoundClassificationService extends Service {
         startForeground(1, notification);
     }
 
+    /**
+     * @return stage latency histograms of the live pipeline for the current reporting interval.
+     */
+    public static PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    /**
+     * @return the NPU/GPU variant if hardware acceleration is enabled in settings, the CPU-only one otherwise.
+     */
+    private ClassifierHandler.Variant selectVariant() {
+        return PreferenceUtil.isGpuEnabled(this)
+                ? ClassifierHandler.Variant.DEFAULT_DELEGATES
+                : ClassifierHandler.Variant.CPU_ONLY;
+    }
+
     @RequiresPermission(Manifest.permission.RECORD_AUDIO)
-    private void startClassificationLoop() {
-        SoundClassification soundClassification;
+    private AudioRecord createAudioRecord(int windowSize) {
+        AudioFormat format = new AudioFormat.Builder()
+                .setSampleRate(SAMPLE_RATE)
+                .setChannelMask(AudioFormat.CHANNEL_IN_MONO)
+                .setEncoding(AudioFormat.ENCODING_PCM_FLOAT)
+                .build();
+        int minBufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_FLOAT);
 
-        if (ClassifierHandler.isInitialized()) {
-            soundClassification = ClassifierHandler.getDefaultClassifier();
-            // 예시
-        } else {
-            Log.e("Home", "Classifier 아직 초기화되지 않음");
-            soundClassification = ClassifierHandler.getCpuOnlyClassifier();
-            // 또는 대기 로직 추가 가능
+        return new AudioRecord.Builder()
+                .setAudioSource(MediaRecorder.AudioSource.VOICE_RECOGNITION)
+                .setAudioFormat(format)
+                .setBufferSizeInBytes(Math.max(minBufferSize, 2 * windowSize * Float.BYTES))
+                .build();
+    }
+
+    @RequiresPermission(Manifest.permission.RECORD_AUDIO)
+    private void startClassificationLoop(ClassifierPool<SoundClassification> pool) {
+        // 분류 루프가 끝날 때까지 인터프리터 하나를 이 서비스 전용으로 빌림
+        ClassifierPool<SoundClassification>.Lease lease;
+        try {
+            lease = pool.acquire(CLASSIFIER_LEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | IllegalStateException e) {
+            lease = null;
+        }
+        if (lease == null) {
+            Log.e("service", "사용 가능한 분류기가 없음: " + pool);
+            stopSelf();
+            return;
         }
+        SoundClassification soundClassification = lease.get();
+        soundClassification.setMetrics(pipelineMetrics);
+        try {
+            startPipeline(pool, lease);
+        } catch (IOException | RuntimeException e) {
+            // AudioRecord 생성 실패, 알림 그룹 설정 오류 등: 분류기를 풀에 돌려주고 종료
+            Log.e("service", "분류 루프를 시작하지 못함", e);
+            handler.removeCallbacks(metricsReporter);
+            releaseAudio();
+            soundClassification.setMetrics(null);
+            lease.close();
+            stopSelf();
+        }
+    }
+
+    /**
+     * Open the microphone and start the capture, preprocess, inference and dispatch stages.
+     * Once the inference stage is running it owns the lease and returns it when it finishes;
+     * if this throws, the lease was not handed over and the caller must return it.
+     */
+    @RequiresPermission(Manifest.permission.RECORD_AUDIO)
+    private void startPipeline(ClassifierPool<SoundClassification> pool,
+                               ClassifierPool<SoundClassification>.Lease lease) throws IOException {
+        SoundClassification soundClassification = lease.get();
+        int windowSize = soundClassification.getWindowSize();
+        classifierWindowSize = windowSize;
+        audioRecord = createAudioRecord(windowSize);
+
+        int captureChunk = SAMPLE_RATE * CAPTURE_CHUNK_MS / 1000;
+        ringBuffer = new PcmRingBuffer(windowSize * RING_BUFFER_WINDOWS, captureChunk);
+        int hopSize = (int) (SAMPLE_RATE * ACTIVE_HOP_MS / 1000);
+        hopScheduler = new HopScheduler(windowSize, hopSize, MAX_PENDING_HOPS);
+        deadlineScheduler = new DeadlineScheduler(
+                TimeUnit.MILLISECONDS.toNanos(WINDOW_DEADLINE_MS),
+                MAX_CONSECUTIVE_LATE_DROPS);
+        // 게이트가 hop 전체를, 그리고 보충 윈도우가 그 시작까지 링 버퍼에서 읽을 수 있는 길이까지만 늘림
+        DutyCycleController dutyCycle = new DutyCycleController(
+                hopSize,
+                (int) (SAMPLE_RATE * QUIET_HOP_MS / 1000),
+                maxGateSpan(windowSize, hopSize),
+                TimeUnit.MILLISECONDS.toNanos(QUIET_AFTER_MS),
+                System.nanoTime());
+        ownDutyCycle = dutyCycle;
+        SoundClassificationService.dutyCycle = dutyCycle;
+        updatePowerState();
+
+        // 감지 대상 그룹(사이렌, 경적, 경보, ...)을 레이블 인덱스로 한 번만 컴파일
+        alertGroups = loadAlertGroups(soundClassification);
+        eventDetector = new EventDetector(
+                soundClassification.getNumClasses(),
+                alertGroups,
+                DETECTOR_SMOOTHING,
+                DETECTOR_RELEASE_RATIO,
+                SAMPLE_RATE * DETECTOR_MIN_DURATION_MS / 1000,
+                SAMPLE_RATE * DETECTOR_COOLDOWN_MS / 1000);
+
+        // 캡처 -> (링 버퍼, hop) -> 전처리 -> (윈도우 큐) -> 추론/감지 -> (알림 큐) -> 전달
+        // 단계마다 스레드가 따로 있어 느린 단계가 앞 단계(특히 캡처)를 막지 않음
+        SpscSlotQueue<WindowSlot> windowQueue = new SpscSlotQueue<>(
+                WINDOW_QUEUE_CAPACITY, WINDOW_QUEUE_POLICY, () -> new WindowSlot(windowSize));
+        SpscSlotQueue<AlertCommand> alertQueue = new SpscSlotQueue<>(
+                ALERT_QUEUE_CAPACITY, ALERT_QUEUE_POLICY, AlertCommand::new);
+        this.alertQueue = alertQueue;
+
+        captureThread = new AudioCaptureThread(audioRecord, ringBuffer, hopScheduler, captureClock, captureChunk);
+        captureThread.start();
+        handler.postDelayed(metricsReporter, METRICS_REPORT_INTERVAL_MS);
+
+        // 타이머 polling 대신, 캡처 스레드가 hop을 완성하는 순간 전처리 실행
+        HopScheduler scheduler = hopScheduler;
+        ClassifierPool<SoundClassification>.Lease classifierLease = lease;
+        boolean leaseHandedOver = false;
+        try {
+            backgroundTaskExecutor.execute(() -> {
+                try {
+                    runInferenceStage(windowQueue, soundClassification, dutyCycle);
+                } finally {
+                    // 분류에 쓰던 스레드에서 반납
+                    soundClassification.setMetrics(null);
+                    classifierLease.close();
+                    alertQueue.close();
+                    Log.d("service", "classifier returned: " + pool);
+                }
+            });
+            leaseHandedOver = true;
+            backgroundTaskExecutor.execute(() -> runDispatchStage(alertQueue));
+            backgroundTaskExecutor.execute(() -> runPreprocessStage(scheduler, windowQueue, dutyCycle, hopSize));
+        } catch (RejectedExecutionException e) {
+            // 시작 전에 서비스가 종료됨
+            windowQueue.close();
+            alertQueue.close();
+            if (!leaseHandedOver) {
+                soundClassification.setMetrics(null);
+                classifierLease.close();
+            }
+        }
+    }
+
+    /**
+     * A model window handed from the preprocess stage to the inference stage. Preallocated and reused.
+     */
+    private static final class WindowSlot implements PcmRingBuffer.SegmentConsumer {
+        final float[] samples;
+        // 윈도우 첫 샘플의 스트림 위치
+        long startSample;
+        // 게이트에 막힌 hop이면 samples/decibel은 채워지지 않음 (감지 상태만 진행)
+        boolean gated;
+        double decibel;
+        // 이전 윈도우 이후 새 오디오 길이 (실시간 비율 계산용)
+        int hopSamples;
+        // 긴 hop 중간에 열린 게이트를 따라잡는 윈도우: 원래 늦으므로 마감 시간으로 건너뛰지 않음
+        boolean catchUp;
+        private int filled;
+
+        WindowSlot(int windowSize) {
+            samples = new float[windowSize];
+        }
+
+        @Override
+        public void accept(float[] source, int offset, int length) {
+            System.arraycopy(source, offset, samples, filled, length);
+            filled += length;
+        }
+    }
 
+    /**
+     * An actuation handed from the inference stage to the dispatch stage. Preallocated and reused.
+     * The torch state is absolute, so a command that was coalesced is fully replaced by the next one.
+     */
+    private static final class AlertCommand {
+        // 브로드캐스트할 레이블, 화면을 "감지된 소리 없음"으로 돌릴 때는 null
+        String label;
+        float score;
+        boolean broadcast;
+        boolean vibrate;
+        boolean setTorch;
+        boolean torchOn;
+        // 알림을 확정한 윈도우의 마지막 샘플 (캡처->알림 지연 측정용, 없으면 -1)
+        long captureSample;
+    }
+
+    /**
+     * Gate each hop as soon as the capture thread completes it and copy the windows worth classifying
+     * out of the ring. Runs until the scheduler is closed, then closes the window queue.
+     *
+     * Everything captured since the previous hop is gated in blocks of at most {@code stride} samples,
+     * so a short sound in a long quiet-mode hop is not averaged away. If the gate opens earlier than
+     * the newest window reaches back, the windows covering that audio are queued first, {@code stride}
+     * apart, as if the hop had been dense all along.
+     *
+     * @param stride Hop size in active mode; gate block length and spacing of catch-up windows.
+     */
+    private void runPreprocessStage(HopScheduler scheduler,
+                                    SpscSlotQueue<WindowSlot> windowQueue,
+                                    DutyCycleController dutyCycle,
+                                    int stride) {
+        int windowSize = scheduler.getWindowSize();
+        int maxSpan = maxGateSpan(windowSize, stride);
         try {
+            long hopEnd;
+            long previousHopEnd = -1;
+            long waitStart = System.nanoTime();
+            while ((hopEnd = scheduler.awaitHop()) >= 0) {
+                long gateStart = System.nanoTime();
+                pipelineMetrics.record(PipelineMetrics.Stage.CAPTURE_WAIT, gateStart - waitStart);
+
+                // 이번 hop의 에너지/flatness가 배경 수준이면 추론하지 않음
+                // 조용한 모드에서 hop이 길어도 지난 hop 이후 전체를 stride 단위 블록으로 검사
+                int hopSamples = previousHopEnd < 0
+                        ? Math.min(scheduler.getHopSize(), windowSize)
+                        : (int) (hopEnd - previousHopEnd);
+                int span = Math.min(hopSamples, maxSpan);
+                previousHopEnd = hopEnd;
+                long openStart = gateSpan(hopEnd - span, span, stride);
+                boolean gated = openStart < 0;
+
+                // 다음 hop 간격 결정 (활동이 보이면 바로 촘촘하게)
+                int nextHop = dutyCycle.onHop(!gated, gateStart);
+                if (nextHop != scheduler.getHopSize()) {
+                    scheduler.setHopSize(nextHop);
+                }
 
-            AudioClassifier classifier = AudioClassifier.createFromFile(this, "yamnet.tflite");
-            audioClassifier = classifier;
-
-            audioTensor = classifier.createInputTensorAudio();
-
-            AudioRecord record = classifier.createAudioRecord();
-            audioRecord = record;
-            record.startRecording();
-
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    audioTensor.load(audioRecord);
-
-                    double db = calculateDecibel(audioRecord);
-                    //                String result = soundClassification.runSlidingWindowInference(audioTensor).stream()
-                    //                        .collect(Collectors.joining(", "));
-                    List<Classifications> result = audioClassifier.classify(audioTensor);
-                    List<Category> categories = result.get(0).getCategories();
-                    Log.e("db", Double.toString(db));
-
-                    boolean isLoud = db > 10;  // 데시벨 기준
-                    boolean isSpecificLabelHigh = false;
-
-                    for (Category c : categories) {
-                        if (c.getScore() > MINIMUM_DISPLAY_THRESHOLD) {
-                            String label = c.getLabel();
-                            float score = c.getScore();
-
-                            // 조건 2: 특정 레이블 예시
-//                            if (label.equals("Speech")){
-                            if ((label.equals("Siren") || label.contains("siren") || label.contains("horn")) && score > 0.3) {
-                                isSpecificLabelHigh = true;
-                                if(label.equals("Siren") || label.contains("siren")){
-                                    label = "siren";
-                                }
-                                else {
-                                    label = "horn";
-                                }
-
-                                Intent intent = new Intent("AUDIO_CLASSIFICATION_RESULT");
-                                intent.putExtra("label", label);
-                                intent.putExtra("score", score);
-                                Log.e("service", "label: " + label + " / score: " + score);
-                                LocalBroadcastManager.getInstance(SoundClassificationService.this).sendBroadcast(intent);
-                                break; // 원하는 경우 하나만
-                            }
+                long windowStart = hopEnd - windowSize;
+                if (gated) {
+                    publishWindow(windowQueue, WINDOW_QUEUE_POLICY, windowStart, true, hopSamples, false);
+                } else {
+                    SpscSlotQueue.DropPolicy policy = WINDOW_QUEUE_POLICY;
+                    if (openStart < windowStart) {
+                        // 최신 윈도우보다 앞에서 게이트가 열림: 그 구간을 덮는 윈도우를 오래된 것부터 먼저 분류
+                        // (버려지면 안 되므로 추론 단계를 기다림, 이번 hop의 최신 윈도우도 이들을 밀어내지 않게 기다림)
+                        for (long k = (hopEnd - openStart + stride - 1) / stride - 1; k >= 1; k--) {
+                            publishWindow(windowQueue, SpscSlotQueue.DropPolicy.BLOCK,
+                                    hopEnd - k * stride - windowSize, false, stride, true);
                         }
+                        policy = SpscSlotQueue.DropPolicy.BLOCK;
+                    }
+                    publishWindow(windowQueue, policy, windowStart, false, hopSamples, false);
+                }
+                pipelineMetrics.record(PipelineMetrics.Stage.GATE, System.nanoTime() - gateStart);
+                waitStart = System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            windowQueue.close();
+            Log.d("service", "window queue: " + windowQueue);
+        }
+    }
+
+    /**
+     * Longest span the preprocess stage may gate in one hop. The oldest catch-up window reaches
+     * {@code windowSize - stride} samples further back than the span, and the producer may be up to
+     * one guard ahead of the hop it announced, so all of it must stay clear of the overwrite guard.
+     */
+    private int maxGateSpan(int windowSize, int stride) {
+        return ringBuffer.capacity() - 2 * ringBuffer.guardSize() - windowSize + stride;
+    }
 
+    /**
+     * Run the energy gate over {@code [start, start + length)} in equal blocks of at most {@code blockSize} samples.
+     *
+     * Blocks that were overwritten before the gate could read them are skipped: they neither open
+     * the gate nor update its noise floor.
+     *
+     * @return start of the first block that opened the gate, or -1 if no readable block opened it.
+     */
+    private long gateSpan(long start, int length, int blockSize) {
+        int blocks = (length + blockSize - 1) / blockSize;
+        long openStart = -1;
+        for (int b = 0; b < blocks; b++) {
+            long blockStart = start + (long) length * b / blocks;
+            long blockEnd = start + (long) length * (b + 1) / blocks;
+            energyGate.begin();
+            if (!ringBuffer.read(blockStart, (int) (blockEnd - blockStart), energyGate)) {
+                // 이미 덮어써진 블록: end()를 부르지 않으면 다음 begin()이 읽다 만 값을 버림
+                gateBlocksSkipped++;
+                continue;
+            }
+            if (energyGate.end() && openStart < 0) {
+                openStart = blockStart;
+            }
+        }
+        return openStart;
+    }
+
+    /**
+     * Queue one window for the inference stage. Gated windows carry no samples and no level.
+     *
+     * @param policy     What to do if the inference stage is a full queue behind.
+     * @param hopSamples New audio since the previous window; its newest part is what the loudness check measures.
+     */
+    private void publishWindow(SpscSlotQueue<WindowSlot> windowQueue, SpscSlotQueue.DropPolicy policy,
+                               long startSample, boolean gated, int hopSamples, boolean catchUp)
+            throws InterruptedException {
+        WindowSlot slot = windowQueue.claim(policy);
+        if (slot == null) {
+            return;
+        }
+        slot.startSample = startSample;
+        slot.gated = gated;
+        slot.decibel = 0;
+        slot.hopSamples = hopSamples;
+        slot.catchUp = catchUp;
+        if (!gated) {
+            // 모델 입력과 데시벨 측정 모두 같은 링 버퍼의 샘플을 사용 (AudioRecord 추가 read 없음)
+            // 데시벨은 이 윈도우에 새로 들어온 hop만 측정 (조용한 구간의 밀린 오디오가 섞이지 않음)
+            int levelLength = Math.min(hopSamples, slot.samples.length);
+            levelMeter.reset();
+            slot.filled = 0;
+            if (!ringBuffer.read(startSample + slot.samples.length - levelLength, levelLength, levelMeter)
+                    || !ringBuffer.read(startSample, slot.samples.length, slot)) {
+                // 너무 밀려서 윈도우가 이미 덮어써짐: 이번 윈도우는 건너뜀 (슬롯은 다음 윈도우가 재사용)
+                windowsSkipped++;
+                return;
+            }
+            slot.decibel = levelMeter.decibel();
+        }
+        windowQueue.publish();
+    }
+
+    /**
+     * Classify windows and run event detection. Runs until the window queue is closed and drained.
+     */
+    private void runInferenceStage(SpscSlotQueue<WindowSlot> windowQueue,
+                                   SoundClassification soundClassification,
+                                   DutyCycleController dutyCycle) {
+        try {
+            WindowSlot slot;
+            while ((slot = windowQueue.take()) != null) {
+                flushPendingActuation();
+                if (slot.gated) {
+                    // 게이트에 막힌 hop은 조용한 구간: 큰 소리 상태도 여기서 끝남
+                    // (먼저 해제해야 decay로 끝나는 감지 이벤트가 플래시를 끔)
+                    boolean wasLoud = loudActive;
+                    loudActive = false;
+                    // 추론은 건너뛰어도 감지 상태는 (점수 0으로) 진행시켜야 알림이 종료됨
+                    eventDetector.decay(slot.startSample, alertListener);
+                    if (wasLoud && eventDetector.getActiveCount() == 0) {
+                        sendAlert(null, 0, false, false, false, -1);
+                    }
+                    continue;
+                }
+
+                long capturedAt = captureClock.timeOf(slot.startSample + slot.samples.length);
+                long admitAt = System.nanoTime();
+                if (!slot.catchUp && !deadlineScheduler.admit(capturedAt, admitAt, windowQueue.size() > 0)) {
+                    // 더 최근 윈도우가 대기 중이거나 마감 전에 끝낼 수 없음: 감지 상태는 건드리지 않고 건너뜀
+                    continue;
+                }
+
+                float[] scores = soundClassification.runInference(slot.samples, 0, slot.samples.length);
+
+                long postStart = System.nanoTime();
+                if (capturedAt != CaptureClock.UNKNOWN) {
+                    pipelineMetrics.record(PipelineMetrics.Stage.WINDOW_STALENESS,
+                            soundClassification.getLastInferenceStartTime() - capturedAt);
+                }
+                Log.e("db", Double.toString(slot.decibel));
+
+                // 조건 1: 데시벨 기준 (커지는 순간에만 알림)
+                boolean isLoud = slot.decibel > 10;
+                if (isLoud != loudActive) {
+                    loudActive = isLoud;
+                    if (isLoud) {
+                        sendAlert(null, 0, false, true, true, slot.startSample + slot.samples.length);
+                    } else if (eventDetector.getActiveCount() == 0) {
+                        sendAlert(null, 0, false, false, false, -1);
                     }
+                }
 
-                    if (isLoud || isSpecificLabelHigh) {
-                        vibratePhone();
+                // 조건 2: 특정 레이블 그룹 (스무딩된 점수로 시작/종료가 확정될 때만 콜백)
+                eventDetector.update(scores, slot.startSample, alertListener);
+                if (isCandidate()) {
+                    dutyCycle.onCandidate();
+                }
+                long decidedAt = System.nanoTime();
+                deadlineScheduler.completed(slot.catchUp ? CaptureClock.UNKNOWN : capturedAt, admitAt, decidedAt,
+                        slot.hopSamples * 1_000_000_000L / SAMPLE_RATE);
+                pipelineMetrics.record(PipelineMetrics.Stage.POSTPROCESS, decidedAt - postStart);
+                if (capturedAt != CaptureClock.UNKNOWN) {
+                    pipelineMetrics.record(PipelineMetrics.Stage.CAPTURE_TO_DECISION, decidedAt - capturedAt);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Log.d("service", "alerts coalesced: " + alertsCoalesced);
+        }
+    }
+
+    /**
+     * @return whether an alert group is active or its smoothed score is close to its threshold.
+     */
+    private boolean isCandidate() {
+        if (eventDetector.getActiveCount() > 0) {
+            return true;
+        }
+        for (int g = 0; g < alertGroups.size(); g++) {
+            if (eventDetector.getGroupScore(g) >= alertGroups.getThreshold(g) * CANDIDATE_RATIO) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            if (level >= 0 && scale > 0) {
+                batteryPercent = level * 100 / scale;
+            }
+            charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            updatePowerState();
+        }
+    };
+
+    private final PowerManager.OnThermalStatusChangedListener thermalListener = status -> updatePowerState();
+
+    private void updatePowerState() {
+        DutyCycleController controller = dutyCycle;
+        if (controller != null && powerManager != null) {
+            controller.setPowerState(batteryPercent, charging, powerManager.getCurrentThermalStatus());
+        }
+    }
+
+    /**
+     * @return the classification rate controller of the running service, or null if not running.
+     */
+    public static DutyCycleController getDutyCycle() {
+        return dutyCycle;
+    }
+
+    // 감지 그룹 상태가 바뀔 때만 호출됨 (윈도우마다 진동/플래시/브로드캐스트하지 않음), 추론 스레드에서 실행
+    private final EventDetector.TransitionListener alertListener = new EventDetector.TransitionListener() {
+        @Override
+        public void onEventStart(int group, float score, long position) {
+            // 알림을 확정한 윈도우의 마지막 샘플 기준으로 지연 측정
+            sendAlert(alertGroups.getName(group), score, true, true, true, position + classifierWindowSize);
+        }
+
+        @Override
+        public void onEventEnd(int group, long position) {
+            Log.e("service", "label ended: " + alertGroups.getName(group));
+            if (eventDetector.getActiveCount() == 0) {
+                // label 없이 보내면 화면에 "감지된 소리 없음" 표시
+                sendAlert(null, 0, true, false, loudActive, -1);
+            }
+        }
+    };
+
+    /**
+     * Queue an actuation for the dispatch stage.
+     *
+     * Label alerts are never dropped: if the dispatch stage is a full queue behind, the inference stage
+     * waits for it. Other commands only carry vibration, torch state and the "nothing detected" screen,
+     * so when the queue is full they are coalesced instead of blocking: the latest torch state and a
+     * pending screen reset go out with the next command that fits, or from {@link #flushPendingActuation()}.
+     *
+     * @param torchOn       Torch state after this command.
+     * @param captureSample Last sample of the window that triggered an alert, or -1 if not an alert.
+     */
+    private void sendAlert(String label, float score, boolean broadcast, boolean vibrate, boolean torchOn, long captureSample) {
+        boolean labelAlert = broadcast && label != null;
+        AlertCommand command;
+        if (labelAlert) {
+            try {
+                command = alertQueue.claim();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } else {
+            command = alertQueue.tryClaim();
+        }
+        if (command == null) {
+            if (!labelAlert && !alertQueue.isClosed()) {
+                actuationPending = true;
+                pendingTorchOn = torchOn;
+                pendingClear |= broadcast;
+                alertsCoalesced++;
+            }
+            return;
+        }
+        // 합쳐 둔 화면 초기화는 새 레이블 알림이 있으면 의미 없음
+        if (!labelAlert && pendingClear) {
+            broadcast = true;
+        }
+        actuationPending = false;
+        pendingClear = false;
+        command.label = label;
+        command.score = score;
+        command.broadcast = broadcast;
+        command.vibrate = vibrate;
+        command.setTorch = true;
+        command.torchOn = torchOn;
+        command.captureSample = captureSample;
+        alertQueue.publish();
+    }
+
+    /**
+     * Send the torch state (and screen reset) coalesced while the alert queue was full, once there is room.
+     */
+    private void flushPendingActuation() {
+        if (actuationPending) {
+            long coalesced = alertsCoalesced;
+            sendAlert(null, 0, pendingClear, false, pendingTorchOn, -1);
+            // 아직 자리가 없어 다시 합쳐졌더라도 새 명령은 아님
+            alertsCoalesced = coalesced;
+        }
+    }
+
+    /**
+     * Deliver alerts (broadcast, vibration, torch) off the inference thread, so a slow
+     * {@link CameraManager} call delays only later alerts. Runs until the alert queue is closed.
+     */
+    private void runDispatchStage(SpscSlotQueue<AlertCommand> alertQueue) {
+        boolean torchOn = false;
+        try {
+            AlertCommand command;
+            while ((command = alertQueue.take()) != null) {
+                if (alertQueue.isClosed()) {
+                    // 서비스 종료 중: 남은 알림은 전달하지 않음
+                    continue;
+                }
+                long dispatchStart = System.nanoTime();
+                if (command.broadcast) {
+                    Intent intent = new Intent("AUDIO_CLASSIFICATION_RESULT");
+                    if (command.label != null) {
+                        intent.putExtra("label", command.label);
+                        intent.putExtra("score", command.score);
+                        intent.putExtra("captureSample", command.captureSample);
+                        intent.putExtra("captureTimeNanos", captureClock.timeOf(command.captureSample));
+                        Log.e("service", "label: " + command.label + " / score: " + command.score);
+                    }
+                    LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
+                }
+                if (command.vibrate) {
+                    vibratePhone();
+                }
+                if (command.setTorch && command.torchOn != torchOn) {
+                    torchOn = command.torchOn;
+                    if (torchOn) {
                         turnOnFlash();
+                    } else {
+                        turnOffFlash();
                     }
-                    handler.postDelayed(this, classficationInterval); // 1초마다 실행
                 }
-            });
-        } catch (IOException e){
-            e.printStackTrace();
+                long dispatchedAt = System.nanoTime();
+                pipelineMetrics.record(PipelineMetrics.Stage.DISPATCH, dispatchedAt - dispatchStart);
+
+                long capturedAt = command.captureSample >= 0 ? captureClock.timeOf(command.captureSample) : CaptureClock.UNKNOWN;
+                if (capturedAt != CaptureClock.UNKNOWN) {
+                    long latency = dispatchedAt - capturedAt;
+                    pipelineMetrics.record(PipelineMetrics.Stage.CAPTURE_TO_ACTUATION, latency);
+                    if (command.label != null) {
+                        Log.i("service", "capture-to-alert: " + latency / 1000000 + " ms");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (torchOn) {
+                turnOffFlash();
+            }
+            Log.d("service", "alert queue: " + alertQueue);
+        }
+    }
+
+    // 구간별 p50/p95/p99/max를 남기고 다음 구간을 새로 시작 (오디오 스레드에서 실행)
+    private final Runnable metricsReporter = new Runnable() {
+        @Override
+        public void run() {
+            for (Map.Entry<PipelineMetrics.Stage, LatencyHistogram.Snapshot> entry : pipelineMetrics.snapshotAndReset().entrySet()) {
+                if (entry.getValue().getCount() > 0) {
+                    Log.i("metrics", entry.getKey() + ": " + entry.getValue());
+                }
+            }
+            if (deadlineScheduler != null) {
+                Log.i("metrics", deadlineScheduler + ", hops dropped " + hopScheduler.getHopsDropped()
+                        + ", windows skipped " + windowsSkipped + ", gate blocks skipped " + gateBlocksSkipped);
+            }
+            DutyCycleController controller = dutyCycle;
+            if (controller != null) {
+                Log.i("metrics", controller.toString());
+            }
+            handler.postDelayed(this, METRICS_REPORT_INTERVAL_MS);
+        }
+    };
+
+    /**
+     * Load the alert group config and resolve it against the classifier's labels.
+     */
+    private LabelGroupMatcher loadAlertGroups(SoundClassification soundClassification) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getAssets().open(getString(R.string.alertGroupsAsset))))) {
+            return LabelGroupMatcher.compile(soundClassification.getLabels(), LabelGroupMatcher.parseRules(reader));
         }
     }
 
@@ -176,6 +798,33 @@ public class SoundClassificationService extends Service {
         turnOffFlash();
         stopForeground(true); // 알림 제거
         handler.removeCallbacksAndMessages(null);
+        unregisterReceiver(batteryReceiver);
+        powerManager.removeThermalStatusListener(thermalListener);
+        if (dutyCycle == ownDutyCycle) {
+            dutyCycle = null;
+        }
+        backgroundTaskExecutor.shutdown();
+        // 오디오 스레드에서 정리해야 진행 중인 startClassificationLoop와 겹치지 않음
+        handler.post(this::releaseAudio);
+        handler.getLooper().quitSafely();
+        ClassifierHandler.release(classifierVariant);
+    }
+
+    private void releaseAudio() {
+        if (hopScheduler != null) {
+            hopScheduler.close();
+            Log.d("service", "hops: " + hopScheduler.getHopsScheduled() + " (dropped " + hopScheduler.getHopsDropped()
+                    + "), windows skipped " + windowsSkipped + ", gate blocks: closed " + energyGate.getClosedBlocks()
+                    + " / open " + energyGate.getOpenBlocks() + " (skipped " + gateBlocksSkipped + ")");
+        }
+        if (captureThread != null) {
+            captureThread.shutdown();
+            captureThread = null;
+        }
+        if (audioRecord != null) {
+            audioRecord.release();
+            audioRecord = null;
+        }
     }
 
     @Override
@@ -212,25 +861,6 @@ public class SoundClassificationService extends Service {
         }
     }
 
-    private double calculateDecibel(AudioRecord audioRecord) {
-        int bufferSize = 1024;
-        short[] buffer = new short[bufferSize];
-        int read = audioRecord.read(buffer, 0, bufferSize);
-
-        double sum = 0;
-        for (int i = 0; i < read; i++) {
-            sum += buffer[i] * buffer[i];
-        }
-
-        if (read > 0) {
-            double rms = Math.sqrt(sum / read);
-            if (rms > 0) {
-                return 20 * Math.log10(rms);
-            }
-        }
-        return 0;
-    }
-
 
 
     /**
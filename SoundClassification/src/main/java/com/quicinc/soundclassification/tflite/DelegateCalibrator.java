@@ -0,0 +1,220 @@
+package com.quicinc.soundclassification.tflite;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+import android.util.Pair;
+
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks the fastest delegate combination for a model on this device, by measuring instead of guessing.
+ *
+ * Calibration builds an interpreter for every candidate combination that loads, warms it up, times
+ * a fixed number of inferences and keeps the one with the lowest median latency (p99 breaks ties).
+ * The winner is persisted per model hash, app version and device build, so later launches go
+ * straight to it. Small models such as YAMNet are often faster on XNNPack than on GPU once dispatch
+ * overhead is counted, which the default "most accelerated first" order cannot know.
+ */
+public class DelegateCalibrator {
+    private static final String TAG = "DelegateCalibrator";
+    private static final String PREFS_NAME = "delegate_calibration";
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 20;
+
+    /**
+     * Measurements of one delegate combination.
+     */
+    public static class Result {
+        public final TFLiteHelpers.DelegateType[] delegates;
+        public final long initNanos;
+        public final long p50Nanos;
+        public final long p99Nanos;
+
+        Result(TFLiteHelpers.DelegateType[] delegates, long initNanos, long p50Nanos, long p99Nanos) {
+            this.delegates = delegates;
+            this.initNanos = initNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return encode(delegates) + ": init " + initNanos / 1000000 + " ms, p50 " + p50Nanos / 1000
+                    + " us, p99 " + p99Nanos / 1000 + " us";
+        }
+    }
+
+    /**
+     * Return {@code candidates} with this device's fastest combination moved to the front, calibrating
+     * first if no result is stored for this model, app version and device. The other combinations
+     * keep their order as fallbacks in case the winner fails to load later.
+     *
+     * @param candidates Delegate priority order to choose from (see {@link AIHubDefaults#delegatePriorityOrder}).
+     */
+    public static TFLiteHelpers.DelegateType[][] resolvePriorityOrder(Context context,
+                                                                      String modelAsset,
+                                                                      TFLiteHelpers.DelegateType[][] candidates)
+            throws IOException, NoSuchAlgorithmException {
+        if (candidates.length < 2) {
+            return candidates;
+        }
+        Pair<MappedByteBuffer, String> model = ModelAssetRegistry.getModel(context, modelAsset);
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String key = model.second + "|" + appVersion(context) + "|" + Build.FINGERPRINT;
+
+        String stored = prefs.getString(key, null);
+        if (stored == null) {
+            List<Result> results = calibrate(context, model.first, model.second, candidates);
+            if (results.isEmpty()) {
+                return candidates;
+            }
+            Result best = results.get(0);
+            for (Result result : results) {
+                Log.i(TAG, result.toString());
+                if (result.p50Nanos < best.p50Nanos
+                        || (result.p50Nanos == best.p50Nanos && result.p99Nanos < best.p99Nanos)) {
+                    best = result;
+                }
+            }
+            Log.i(TAG, "Selected " + best);
+            stored = encode(best.delegates);
+            // One entry per model; results for older versions or builds of this model are obsolete.
+            SharedPreferences.Editor editor = prefs.edit();
+            String modelPrefix = model.second + "|";
+            for (String storedKey : prefs.getAll().keySet()) {
+                if (storedKey.startsWith(modelPrefix)) {
+                    editor.remove(storedKey);
+                }
+            }
+            editor.putString(key, stored).apply();
+        }
+        return withFirst(candidates, stored);
+    }
+
+    /**
+     * Measure every candidate combination that can be loaded on this device.
+     * Blocks for roughly (warm-up + timed runs) inferences per combination, plus their init cost.
+     *
+     * @return one result per combination that loaded, in candidate order.
+     */
+    public static List<Result> calibrate(Context context,
+                                         MappedByteBuffer model,
+                                         String modelIdentifier,
+                                         TFLiteHelpers.DelegateType[][] candidates) {
+        StartupTrace.Span span = StartupTrace.begin("calibration", candidates.length + " candidates");
+        List<Result> results = new ArrayList<>();
+        for (TFLiteHelpers.DelegateType[] delegates : candidates) {
+            long initStart = System.nanoTime();
+            Pair<Interpreter, Map<TFLiteHelpers.DelegateType, Delegate>> created;
+            try {
+                created = TFLiteHelpers.CreateInterpreterAndDelegatesFromOptions(
+                        model,
+                        new TFLiteHelpers.DelegateType[][] { delegates },
+                        AIHubDefaults.numCPUThreads,
+                        context.getApplicationInfo().nativeLibraryDir,
+                        context.getCacheDir().getAbsolutePath(),
+                        modelIdentifier
+                );
+            } catch (RuntimeException e) {
+                Log.i(TAG, encode(delegates) + " is not available on this device");
+                continue;
+            }
+            long initNanos = System.nanoTime() - initStart;
+
+            Interpreter interpreter = created.first;
+            try {
+                ByteBuffer input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes()).order(ByteOrder.nativeOrder());
+                ByteBuffer output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes()).order(ByteOrder.nativeOrder());
+                // Low-level noise rather than zeros, so no delegate can take a shortcut.
+                Random random = new Random(0);
+                while (input.remaining() >= Float.BYTES) {
+                    input.putFloat((random.nextFloat() - 0.5f) * 0.01f);
+                }
+
+                long[] timings = new long[TIMED_RUNS];
+                for (int i = 0; i < WARMUP_RUNS + TIMED_RUNS; i++) {
+                    input.rewind();
+                    output.rewind();
+                    long start = System.nanoTime();
+                    interpreter.run(input, output);
+                    if (i >= WARMUP_RUNS) {
+                        timings[i - WARMUP_RUNS] = System.nanoTime() - start;
+                    }
+                }
+                Arrays.sort(timings);
+                results.add(new Result(delegates, initNanos,
+                        timings[TIMED_RUNS / 2],
+                        timings[Math.min(TIMED_RUNS - 1, (int) Math.ceil(TIMED_RUNS * 0.99) - 1)]));
+            } catch (RuntimeException e) {
+                Log.w(TAG, encode(delegates) + " failed during calibration: " + e.getMessage());
+            } finally {
+                interpreter.close();
+                for (Delegate delegate : created.second.values()) {
+                    delegate.close();
+                }
+            }
+        }
+        span.end(!results.isEmpty());
+        return results;
+    }
+
+    /**
+     * Forget stored winners, e.g. after changing the candidate list.
+     */
+    public static void clear(Context context) {
+        context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit().clear().apply();
+    }
+
+    private static TFLiteHelpers.DelegateType[][] withFirst(TFLiteHelpers.DelegateType[][] candidates, String encoded) {
+        for (int i = 0; i < candidates.length; i++) {
+            if (encode(candidates[i]).equals(encoded)) {
+                TFLiteHelpers.DelegateType[][] ordered = new TFLiteHelpers.DelegateType[candidates.length][];
+                ordered[0] = candidates[i];
+                for (int j = 0, k = 1; j < candidates.length; j++) {
+                    if (j != i) {
+                        ordered[k++] = candidates[j];
+                    }
+                }
+                return ordered;
+            }
+        }
+        // Stored winner is not among the candidates any more.
+        return candidates;
+    }
+
+    private static String encode(TFLiteHelpers.DelegateType[] delegates) {
+        if (delegates.length == 0) {
+            return "XNNPack";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (TFLiteHelpers.DelegateType delegate : delegates) {
+            sb.append(delegate.name()).append('+');
+        }
+        return sb.append("XNNPack").toString();
+    }
+
+    private static String appVersion(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.getLongVersionCode() + "@" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
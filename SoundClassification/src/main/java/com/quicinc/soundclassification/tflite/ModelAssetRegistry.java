@@ -0,0 +1,106 @@
+package com.quicinc.soundclassification.tflite;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.util.Pair;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of memory-mapped model assets.
+ *
+ * Each asset is mapped once per process and the same read-only buffer is handed to every
+ * interpreter built from it. The model identifier (MD5 of the model, used as the QNN/GPU delegate
+ * cache token) is persisted in shared preferences, keyed by APK version and install time plus the
+ * asset's offset and length in the APK, so the hash is only computed once per install.
+ */
+public class ModelAssetRegistry {
+    private static final String PREFS_NAME = "model_asset_ids";
+
+    private static final Map<String, Pair<MappedByteBuffer, String>> models = new HashMap<>();
+
+    /**
+     * Get a model asset, mapping it on first use.
+     *
+     * @param context       Any context; the application context is used.
+     * @param modelFilename Asset name of the model.
+     * @return The shared read-only model buffer, and a unique model identifier hash string.
+     * @throws IOException If the model file does not exist or cannot be read.
+     */
+    public static synchronized Pair<MappedByteBuffer, String> getModel(Context context, String modelFilename)
+            throws IOException, NoSuchAlgorithmException {
+        Pair<MappedByteBuffer, String> model = models.get(modelFilename);
+        if (model != null) {
+            return model;
+        }
+
+        Context appContext = context.getApplicationContext();
+        StartupTrace.Span mapSpan = StartupTrace.begin("model.map", modelFilename);
+        MappedByteBuffer buffer;
+        String idKey;
+        try (AssetFileDescriptor fileDescriptor = appContext.getAssets().openFd(modelFilename);
+             FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor())) {
+            long startOffset = fileDescriptor.getStartOffset();
+            long declaredLength = fileDescriptor.getDeclaredLength();
+            buffer = inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
+            idKey = modelFilename + "|" + installVersion(appContext) + "|" + startOffset + "|" + declaredLength;
+        } finally {
+            mapSpan.end();
+        }
+
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String hash = prefs.getString(idKey, null);
+        if (hash == null) {
+            StartupTrace.Span hashSpan = StartupTrace.begin("model.hash", modelFilename);
+            try {
+                hash = md5Hex(buffer);
+            } finally {
+                hashSpan.end();
+            }
+
+            // Drop identifiers of earlier installs of this asset.
+            SharedPreferences.Editor editor = prefs.edit();
+            for (String key : prefs.getAll().keySet()) {
+                if (key.startsWith(modelFilename + "|")) {
+                    editor.remove(key);
+                }
+            }
+            editor.putString(idKey, hash).apply();
+        }
+
+        model = new Pair<>(buffer, hash);
+        models.put(modelFilename, model);
+        return model;
+    }
+
+    private static String installVersion(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            // lastUpdateTime changes on every install, so debug builds that keep versionCode 1 still re-hash.
+            return info.getLongVersionCode() + "@" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+
+    private static String md5Hex(MappedByteBuffer buffer) throws NoSuchAlgorithmException {
+        // Digest the mapped pages directly instead of reading the asset a second time.
+        MessageDigest hashDigest = MessageDigest.getInstance("MD5");
+        hashDigest.update(buffer.duplicate());
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hashDigest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.quicinc.soundclassification.tflite;
+
+import android.os.Build;
+import android.os.Debug;
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide record of where classifier start-up time goes.
+ *
+ * Each stage (label loading, model mapping and hashing, every delegate and interpreter attempt,
+ * warm-up, ...) records its wall time and the CPU time of the calling thread, and whether it
+ * succeeded, so failed delegate combinations show up with their cost. Stages are kept in the
+ * order they finished; the oldest are dropped past {@link #MAX_STAGES}.
+ *
+ * <pre>
+ * StartupTrace.Span span = StartupTrace.begin("labels", labelsPath);
+ * try { ... } finally { span.end(); }
+ * </pre>
+ */
+public class StartupTrace {
+    public static final int MAX_STAGES = 256;
+
+    private static final ArrayDeque<Stage> stages = new ArrayDeque<>();
+
+    /**
+     * One finished stage.
+     */
+    public static class Stage {
+        public final String name;
+        /** What the stage worked on, e.g. the asset or delegate combination. May be null. */
+        public final String detail;
+        public final String thread;
+        /** Start time relative to process start, in nanoseconds. */
+        public final long startNanos;
+        public final long wallNanos;
+        /** CPU time of the calling thread; native work on other threads is not included. */
+        public final long cpuNanos;
+        public final boolean succeeded;
+
+        Stage(String name, String detail, String thread, long startNanos, long wallNanos, long cpuNanos, boolean succeeded) {
+            this.name = name;
+            this.detail = detail;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.succeeded = succeeded;
+        }
+
+        @Override
+        public String toString() {
+            return name + (detail != null ? " [" + detail + "]" : "") + (succeeded ? "" : " FAILED")
+                    + ": wall " + wallNanos / 1000 + " us, cpu " + cpuNanos / 1000 + " us";
+        }
+    }
+
+    /**
+     * A stage in progress. Must be ended exactly once, by the thread that began it.
+     */
+    public static class Span {
+        private final String name;
+        private final String detail;
+        private final long startElapsed;
+        private final long startCpu;
+        private boolean ended;
+
+        private Span(String name, String detail) {
+            this.name = name;
+            this.detail = detail;
+            this.startCpu = Debug.threadCpuTimeNanos();
+            this.startElapsed = SystemClock.elapsedRealtimeNanos();
+        }
+
+        /**
+         * End the stage as succeeded.
+         */
+        public void end() {
+            end(true);
+        }
+
+        /**
+         * End the stage. Later calls are ignored, so a failure recorded in a catch block is not
+         * overwritten by the end() in the finally block.
+         */
+        public void end(boolean succeeded) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            long wall = SystemClock.elapsedRealtimeNanos() - startElapsed;
+            long cpu = Debug.threadCpuTimeNanos() - startCpu;
+            long sinceProcessStart = startElapsed - Process.getStartElapsedRealtime() * 1000000L;
+            record(new Stage(name, detail, Thread.currentThread().getName(), sinceProcessStart, wall, cpu, succeeded));
+        }
+    }
+
+    /**
+     * Start timing a stage.
+     */
+    public static Span begin(String name) {
+        return new Span(name, null);
+    }
+
+    /**
+     * Start timing a stage.
+     *
+     * @param detail What the stage works on, e.g. the asset or delegate combination.
+     */
+    public static Span begin(String name, String detail) {
+        return new Span(name, detail);
+    }
+
+    /**
+     * @return the recorded stages, in the order they finished.
+     */
+    public static synchronized List<Stage> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * @return total wall time of the recorded stages with the given name.
+     */
+    public static synchronized long getTotalWallNanos(String name) {
+        long total = 0;
+        for (Stage stage : stages) {
+            if (stage.name.equals(name)) {
+                total += stage.wallNanos;
+            }
+        }
+        return total;
+    }
+
+    public static synchronized void clear() {
+        stages.clear();
+    }
+
+    /**
+     * Write the recorded stages as JSON, together with the device they were measured on.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeTo(File file) throws IOException {
+        JSONObject root = new JSONObject();
+        try {
+            root.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+            root.put("fingerprint", Build.FINGERPRINT);
+            root.put("sdk", Build.VERSION.SDK_INT);
+            JSONArray list = new JSONArray();
+            for (Stage stage : getStages()) {
+                JSONObject item = new JSONObject();
+                item.put("name", stage.name);
+                if (stage.detail != null) {
+                    item.put("detail", stage.detail);
+                }
+                item.put("thread", stage.thread);
+                item.put("startUs", stage.startNanos / 1000);
+                item.put("wallUs", stage.wallNanos / 1000);
+                item.put("cpuUs", stage.cpuNanos / 1000);
+                item.put("succeeded", stage.succeeded);
+                list.put(item);
+            }
+            root.put("stages", list);
+        } catch (JSONException e) {
+            throw new IOException("Unable to encode startup trace", e);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(root.toString());
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    private static synchronized void record(Stage stage) {
+        if (stages.size() == MAX_STAGES) {
+            stages.removeFirst();
+        }
+        stages.addLast(stage);
+    }
+}
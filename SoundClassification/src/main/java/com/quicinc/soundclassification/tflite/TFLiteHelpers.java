@@ -4,8 +4,6 @@
 // ---------------------------------------------------------------------
 package com.quicinc.soundclassification.tflite;
 
-import android.content.res.AssetFileDescriptor;
-import android.content.res.AssetManager;
 import android.util.Log;
 import android.util.Pair;
 
@@ -16,13 +14,7 @@ import org.tensorflow.lite.Interpreter;
 import org.tensorflow.lite.gpu.GpuDelegate;
 import org.tensorflow.lite.gpu.GpuDelegateFactory;
 
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -115,7 +107,9 @@ public class TFLiteHelpers {
             Arrays.stream(delegatesToRegister)
                     .filter(delegateType -> !attemptedDelegates.contains(delegateType))
                     .forEach(delegateType -> {
+                        StartupTrace.Span span = StartupTrace.begin("delegate", delegateType.name());
                         Delegate delegate = CreateDelegate(delegateType, nativeLibraryDir, cacheDir, modelIdentifier);
+                        span.end(delegate != null);
                         if (delegate != null) {
                             delegates.put(delegateType, delegate);
                         }
@@ -156,6 +150,9 @@ public class TFLiteHelpers {
             return new Pair<>(interpreter, delegates);
         }
 
+        // No attempt succeeded; close the delegates created along the way so they don't leak.
+        delegates.values().forEach(Delegate::close);
+
         throw new RuntimeException("Unable to create an interpreter of any kind for the provided model. See log for details.");
     }
 
@@ -183,62 +180,21 @@ public class TFLiteHelpers {
         // registered will have "first pick" of which operators to run, and so on.
         Arrays.stream(delegates).forEach(x -> tfLiteOptions.addDelegate(x.second));
 
+        List<String> enabledDelegates = Arrays.stream(delegates).map(x -> x.first.name()).collect(Collectors.toCollection(ArrayList<String>::new));
+        enabledDelegates.add("XNNPack");
+        StartupTrace.Span span = StartupTrace.begin("interpreter", String.join("+", enabledDelegates));
         try {
             Interpreter i = new Interpreter(tfLiteModel, tfLiteOptions);
             i.allocateTensors();
+            span.end();
             return i;
         } catch (Exception e) {
-            List<String> enabledDelegates = Arrays.stream(delegates).map(x -> x.first.name()).collect(Collectors.toCollection(ArrayList<String>::new));
-            enabledDelegates.add("XNNPack");
+            span.end(false);
             Log.e(TAG, "Failed to Load Interpreter with delegates {" + String.join(", ", enabledDelegates) + "} | " + e.getMessage());
             return null;
         }
     }
 
-    /**
-     * Load a TF Lite model from disk.
-     *
-     * @param assets        Android app asset manager.
-     * @param modelFilename File name of the resource to load.
-     * @return The loaded model in MappedByteBuffer format, and a unique model identifier hash string.
-     * @throws IOException If the model file does not exist or cannot be read.
-     */
-    public static Pair<MappedByteBuffer, String> loadModelFile(AssetManager assets, String modelFilename)
-            throws IOException, NoSuchAlgorithmException {
-        AssetFileDescriptor fileDescriptor = assets.openFd(modelFilename);
-        MappedByteBuffer buffer;
-        String hash;
-
-        try (FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor())) {
-            FileChannel fileChannel = inputStream.getChannel();
-            long startOffset = fileDescriptor.getStartOffset();
-            long declaredLength = fileDescriptor.getDeclaredLength();
-
-            // Map the file to a buffer
-            buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
-
-            // Compute the hash
-            MessageDigest hashDigest = MessageDigest.getInstance("MD5");
-            inputStream.skip(startOffset);
-            try (DigestInputStream dis = new DigestInputStream(inputStream, hashDigest)) {
-                byte[] data = new byte[8192];
-                int numRead = 0;
-                while (numRead < declaredLength) {
-                    numRead += dis.read(data, 0, Math.min(8192, (int)declaredLength - numRead));
-                }; // Computing MD5 hash
-            }
-
-            // Convert hash to string
-            StringBuilder hex = new StringBuilder();
-            for (byte b : hashDigest.digest()) {
-                hex.append(String.format("%02x", b));
-            }
-            hash = hex.toString();
-        }
-
-        return new Pair<>(buffer, hash);
-    }
-
     /**
      * @param delegateType     The type of delegate to create.
      * @param nativeLibraryDir Native library directory for Android app.
@@ -149,7 +149,7 @@ public class HomeFragment extends Fragment {
         LocalBroadcastManager.getInstance(requireContext()).registerReceiver(resultReceiver, filter);
     }
 
-    long classficationInterval = 500;       // 0.5 sec (샘플링 주기)
+    // 분류 간격은 SoundClassificationService가 활동/배터리/발열 상태에 따라 조절 (DutyCycleController)
 //    static final float MINIMUM_DISPLAY_THRESHOLD = 0.03F;
 //    static final String MODEL_FILE = "yamnet.tflite";
 
@@ -1,9 +1,6 @@
 package com.quicinc.soundclassification.ui;
 import com.quicinc.soundclassification.R;
-import com.quicinc.soundclassification.classification.SoundClassification;
 import com.quicinc.soundclassification.databinding.MainActivityBinding;
-import com.quicinc.soundclassification.service.ClassifierHandler;
-import com.quicinc.soundclassification.tflite.AIHubDefaults;
 
 import android.annotation.SuppressLint;
 import android.content.SharedPreferences;
@@ -19,13 +16,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.HashSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class MainActivity extends AppCompatActivity {
@@ -35,12 +27,9 @@ public class MainActivity extends AppCompatActivity {
     private SharedPreferences.OnSharedPreferenceChangeListener prefListener;
     private boolean prefHwAcc;
 
-    // Inference Elements
-    private SoundClassification defaultDelegateClassifier;
-    private SoundClassification cpuOnlyClassifier;
+    // Inference Elements (분류기는 ClassifierHandler가 필요할 때 생성)
     private boolean cpuOnlyClassification = !prefHwAcc;
     NumberFormat timeFormatter = new DecimalFormat("0.00");
-    ExecutorService backgroundTaskExecutor = Executors.newSingleThreadExecutor();
     Handler mainLooperHandler = new Handler(Looper.getMainLooper());
     float[] audioData = null;
 
@@ -110,40 +99,6 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (cpuOnlyClassifier != null) cpuOnlyClassifier.close();
-        if (defaultDelegateClassifier != null) defaultDelegateClassifier.close();
 
     }
-
-    void createTFLiteClassifiersAsync() {
-        if (defaultDelegateClassifier != null || cpuOnlyClassifier != null) {
-            throw new RuntimeException("Classifiers were already created");
-        }
-
-        // Exit the UI thread and instantiate the model in the background.
-        backgroundTaskExecutor.execute(() -> {
-            // Create two classifiers.
-            // One uses the default set of delegates (can access NPU, GPU, CPU), and the other uses only XNNPack (CPU).
-            String tfLiteModelAsset = this.getResources().getString(R.string.tfLiteModelAsset);
-            String tfLiteLabelsAsset = this.getResources().getString(R.string.tfLiteLabelsAsset);
-            try {
-                defaultDelegateClassifier = new SoundClassification(
-                        this,
-                        tfLiteModelAsset,
-                        tfLiteLabelsAsset,
-                        AIHubDefaults.delegatePriorityOrder /* AI Hub Defaults */
-                );
-                cpuOnlyClassifier = new SoundClassification(
-                        this,
-                        tfLiteModelAsset,
-                        tfLiteLabelsAsset,
-                        AIHubDefaults.delegatePriorityOrderForDelegates(new HashSet<>() /* No delegates; cpu only */)
-                );
-            } catch (IOException | NoSuchAlgorithmException e) {
-                throw new RuntimeException(e.getMessage());
-            }
-
-//            mainLooperHandler.post(() -> setInferenceUIEnabled(true));
-        });
-    }
 }
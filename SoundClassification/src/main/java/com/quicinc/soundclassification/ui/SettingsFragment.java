@@ -1,6 +1,9 @@
 package com.quicinc.soundclassification.ui;
 
+import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -24,17 +27,18 @@ public class SettingsFragment extends PreferenceFragmentCompat {
                 public boolean onPreferenceChange(Preference preference, Object newValue) {
                     boolean isChecked = (Boolean) newValue;
                     if (isChecked) {
-                        ClassifierHandler.createAsync(getContext(), new ClassifierHandler.OnClassifierReadyCallback() {
-                            @Override
-                            public void onReady() {
-                                Log.d("Settings", "Classifier 초기화 완료");
-                            }
-
-                            @Override
-                            public void onError(Exception e) {
-                                Toast.makeText(getContext(), "Classifier 초기화 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            }
-                        });
+                        // 서비스를 켜기 전에 가속 분류기를 미리 만들어 둠
+                        Context appContext = requireContext().getApplicationContext();
+                        ClassifierHandler.prefetch(appContext, ClassifierHandler.Variant.DEFAULT_DELEGATES)
+                                .whenComplete((pool, error) -> {
+                                    if (error == null) {
+                                        Log.d("Settings", "Classifier 초기화 완료");
+                                        return;
+                                    }
+                                    // 완료 콜백은 백그라운드 스레드에서 호출되므로 Toast는 메인 스레드로
+                                    new Handler(Looper.getMainLooper()).post(() ->
+                                            Toast.makeText(appContext, "Classifier 초기화 실패: " + error.getMessage(), Toast.LENGTH_SHORT).show());
+                                });
                     }
                     return true;
                 }
@@ -0,0 +1,64 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Maps absolute stream positions (in samples) to the monotonic time, on the {@link System#nanoTime()}
+ * base, at which they were captured.
+ *
+ * The capture thread publishes anchors (a sample position and its capture time) as it reads; any
+ * thread can then timestamp a window by extrapolating from the newest anchor at the nominal sample
+ * rate. Anchors should come from the audio HAL where available, since the time a blocking read
+ * returns is later than the capture time by the device's input buffering.
+ */
+public final class CaptureClock {
+    /** Returned by {@link #timeOf(long)} before the first anchor. */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final class Anchor {
+        final long position;
+        final long nanos;
+
+        Anchor(long position, long nanos) {
+            this.position = position;
+            this.nanos = nanos;
+        }
+    }
+
+    private final int sampleRate;
+    private volatile Anchor anchor;
+
+    /**
+     * @param sampleRate Nominal sample rate of the stream, in Hz.
+     */
+    public CaptureClock(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Publish that the sample at {@code position} was captured at {@code nanos}.
+     *
+     * @param position Absolute stream position, in samples.
+     * @param nanos    Capture time on the {@link System#nanoTime()} base.
+     */
+    public void update(long position, long nanos) {
+        anchor = new Anchor(position, nanos);
+    }
+
+    /**
+     * @param position Absolute stream position, in samples.
+     * @return estimated capture time of that sample on the {@link System#nanoTime()} base, or {@link #UNKNOWN}.
+     */
+    public long timeOf(long position) {
+        Anchor a = anchor;
+        if (a == null) {
+            return UNKNOWN;
+        }
+        return a.nanos + (position - a.position) * 1_000_000_000L / sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+}
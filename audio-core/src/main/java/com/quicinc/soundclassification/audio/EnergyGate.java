@@ -0,0 +1,175 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Cheap pre-inference gate: decides per block of audio whether the model needs to run at all.
+ * A block is usually one hop; a long hop can be fed as several blocks so a short sound in it is not averaged away.
+ *
+ * For each block it measures the RMS level and the spectral flatness (geometric / arithmetic mean of
+ * the power spectrum; near 1 for steady noise, low for tonal or structured sound such as sirens,
+ * alarms or speech). The gate opens when the level rises {@code energyMarginDb} above an adaptive
+ * noise floor, or when flatness drops by a fraction {@code noveltyThreshold} below its background value. Once
+ * open it stays open for {@code hangoverHops} further blocks so an ongoing sound keeps being classified.
+ *
+ * Usage per block: {@link #begin()}, feed the block's samples through {@link #accept}, then {@link #end()}.
+ * If the ring read fails, skip {@link #end()}: the next {@link #begin()} drops the partial block and
+ * the adaptive state never sees it.
+ * Not thread-safe; owned by the classification thread.
+ */
+public class EnergyGate implements PcmRingBuffer.SegmentConsumer {
+    // Below this the input is digital silence; never open on flatness alone.
+    private static final double SILENCE_DB = -80;
+    // Noise floor follows quieter blocks quickly and louder blocks slowly.
+    private static final double FLOOR_FALL_RATE = 0.3;
+    private static final double FLOOR_RISE_RATE = 0.02;
+    private static final double FLATNESS_RATE = 0.05;
+    private static final float POWER_EPSILON = 1e-12f;
+
+    private final PowerSpectrum spectrum;
+    private final float[] frame;
+    private final double energyMarginDb;
+    private final double noveltyThreshold;
+    private final int hangoverHops;
+
+    // Per-block accumulators.
+    private double sumOfSquares;
+    private int sampleCount;
+    private int frameFill;
+    private double flatnessSum;
+    private int frameCount;
+
+    // Adaptive state.
+    private double noiseFloorDb;
+    private double backgroundFlatness = 1;
+    private int hangoverRemaining;
+
+    // Last decision and counters.
+    private double lastEnergyDb = SILENCE_DB;
+    private double lastFlatness = 1;
+    private long closedBlocks;
+    private long openBlocks;
+
+    /**
+     * @param fftSize          Frame length for the flatness measure. Power of two.
+     * @param energyMarginDb   Level above the noise floor that opens the gate.
+     * @param noveltyThreshold Relative drop in flatness below its background value that opens the gate (0..1).
+     * @param hangoverHops     Blocks to stay open after the last trigger.
+     */
+    public EnergyGate(int fftSize, double energyMarginDb, double noveltyThreshold, int hangoverHops) {
+        this.spectrum = new PowerSpectrum(fftSize);
+        this.frame = new float[fftSize];
+        this.energyMarginDb = energyMarginDb;
+        this.noveltyThreshold = noveltyThreshold;
+        this.hangoverHops = hangoverHops;
+    }
+
+    /**
+     * Start measuring a new block.
+     */
+    public void begin() {
+        sumOfSquares = 0;
+        sampleCount = 0;
+        frameFill = 0;
+        flatnessSum = 0;
+        frameCount = 0;
+    }
+
+    @Override
+    public void accept(float[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            float s = samples[i];
+            sumOfSquares += s * s;
+            frame[frameFill++] = s;
+            if (frameFill == frame.length) {
+                flatnessSum += flatness(spectrum.compute(frame, 0));
+                frameCount++;
+                frameFill = 0;
+            }
+        }
+        sampleCount += length;
+    }
+
+    /**
+     * Finish the block, update the adaptive noise floor and decide.
+     *
+     * @return true if the model should run on this block.
+     */
+    public boolean end() {
+        lastEnergyDb = sampleCount > 0 && sumOfSquares > 0
+                ? 10 * Math.log10(sumOfSquares / sampleCount)
+                : SILENCE_DB;
+        lastFlatness = frameCount > 0 ? flatnessSum / frameCount : backgroundFlatness;
+
+        if (closedBlocks + openBlocks == 0) {
+            // Seed the background from the first block instead of guessing.
+            noiseFloorDb = lastEnergyDb;
+            backgroundFlatness = lastFlatness;
+        }
+
+        boolean loud = lastEnergyDb > noiseFloorDb + energyMarginDb;
+        boolean novel = lastEnergyDb > SILENCE_DB && lastFlatness < backgroundFlatness * (1 - noveltyThreshold);
+
+        // Adapt after deciding, so the event itself does not mask its own onset.
+        double floorRate = lastEnergyDb < noiseFloorDb ? FLOOR_FALL_RATE : FLOOR_RISE_RATE;
+        noiseFloorDb += floorRate * (Math.max(lastEnergyDb, SILENCE_DB) - noiseFloorDb);
+        backgroundFlatness += FLATNESS_RATE * (lastFlatness - backgroundFlatness);
+
+        if (loud || novel) {
+            hangoverRemaining = hangoverHops;
+        } else if (hangoverRemaining > 0) {
+            hangoverRemaining--;
+        } else {
+            closedBlocks++;
+            return false;
+        }
+        openBlocks++;
+        return true;
+    }
+
+    private static double flatness(float[] power) {
+        // Skip DC; it says nothing about the character of the sound.
+        double logSum = 0;
+        double sum = 0;
+        int bins = power.length - 1;
+        for (int i = 1; i < power.length; i++) {
+            double p = power[i] + POWER_EPSILON;
+            logSum += Math.log(p);
+            sum += p;
+        }
+        return Math.exp(logSum / bins) / (sum / bins);
+    }
+
+    /**
+     * @return level of the last block in dBFS.
+     */
+    public double getLastEnergyDb() {
+        return lastEnergyDb;
+    }
+
+    /**
+     * @return mean spectral flatness of the last block, in [0, 1].
+     */
+    public double getLastFlatness() {
+        return lastFlatness;
+    }
+
+    /**
+     * @return current noise floor estimate in dBFS.
+     */
+    public double getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    /**
+     * @return blocks that kept the gate closed.
+     */
+    public long getClosedBlocks() {
+        return closedBlocks;
+    }
+
+    /**
+     * @return blocks that opened the gate or fell in its hangover.
+     */
+    public long getOpenBlocks() {
+        return openBlocks;
+    }
+}
@@ -0,0 +1,213 @@
+package com.quicinc.soundclassification.audio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Turns captured audio into "a new hop is ready" events.
+ *
+ * The capture thread reports every publish to the ring; each time the stream crosses a hop boundary
+ * (the end of a new model window), the boundary's absolute sample position is queued and a waiting
+ * consumer is woken. Inference therefore starts as soon as the audio it needs exists, rather than on
+ * a timer that is unrelated to capture.
+ *
+ * The queue is bounded. If the consumer falls behind by more than {@code maxPendingHops}, the oldest
+ * pending hops are dropped so the consumer always works on recent audio.
+ *
+ * The hop size can be changed while running (see {@link #setHopSize(int)}), e.g. to classify less
+ * often while nothing is happening.
+ */
+public class HopScheduler {
+    private final int windowSize;
+    private volatile int hopSize;
+    private final long[] pendingHops;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hopAvailable = lock.newCondition();
+
+    // Guarded by lock.
+    private int head;
+    private int count;
+    private boolean closed;
+    private long hopsScheduled;
+    private long hopsDropped;
+    private long lastHopEnd;
+
+    // Advanced by the producer; re-planned under the lock by setHopSize.
+    private volatile long nextHopEnd;
+
+    /**
+     * @param windowSize     Samples per model window. The first hop ends once this many samples exist.
+     * @param hopSize        Samples between consecutive hops.
+     * @param maxPendingHops Most hops that may wait for the consumer before the oldest is dropped.
+     */
+    public HopScheduler(int windowSize, int hopSize, int maxPendingHops) {
+        if (windowSize <= 0 || hopSize <= 0 || maxPendingHops <= 0) {
+            throw new IllegalArgumentException("Invalid hop schedule: window " + windowSize + ", hop " + hopSize + ", queue " + maxPendingHops);
+        }
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.pendingHops = new long[maxPendingHops];
+        this.nextHopEnd = windowSize;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    /**
+     * Change the distance between hops. The next hop is re-planned from the last scheduled one, so a
+     * shorter hop takes effect immediately instead of after the pending long one.
+     *
+     * @param hopSize Samples between consecutive hops.
+     */
+    public void setHopSize(int hopSize) {
+        if (hopSize <= 0) {
+            throw new IllegalArgumentException("Invalid hop size: " + hopSize);
+        }
+        lock.lock();
+        try {
+            this.hopSize = hopSize;
+            if (hopsScheduled > 0) {
+                nextHopEnd = lastHopEnd + hopSize;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Producer side (capture thread).
+    // ---------------------------------------------------------------------
+
+    /**
+     * Lets the producer size its next read so it ends exactly on a hop boundary.
+     *
+     * @param writePosition Current absolute write position of the stream.
+     * @return samples left until the next hop boundary.
+     */
+    public int samplesUntilNextHop(long writePosition) {
+        return (int) Math.max(1, nextHopEnd - writePosition);
+    }
+
+    /**
+     * Report that samples up to {@code writePosition} (exclusive) have been published.
+     * Queues every hop boundary that has been reached and wakes the consumer.
+     */
+    public void onPublished(long writePosition) {
+        if (writePosition < nextHopEnd) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (nextHopEnd <= writePosition) {
+                if (count == pendingHops.length) {
+                    head = (head + 1) % pendingHops.length;
+                    count--;
+                    hopsDropped++;
+                }
+                pendingHops[(head + count) % pendingHops.length] = nextHopEnd;
+                count++;
+                hopsScheduled++;
+                lastHopEnd = nextHopEnd;
+                nextHopEnd += hopSize;
+            }
+            hopAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Consumer side.
+    // ---------------------------------------------------------------------
+
+    /**
+     * Wait for the next hop.
+     *
+     * @return absolute sample position where the hop's window ends, or -1 once the scheduler is closed.
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    public long awaitHop() throws InterruptedException {
+        lock.lock();
+        try {
+            while (count == 0 && !closed) {
+                hopAvailable.await();
+            }
+            return closed ? -1 : takeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait up to {@code timeout} for the next hop.
+     *
+     * @return absolute sample position where the hop's window ends, or -1 on timeout or once closed.
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    public long awaitHop(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (count == 0 && !closed) {
+                if (nanos <= 0) {
+                    return -1;
+                }
+                nanos = hopAvailable.awaitNanos(nanos);
+            }
+            return closed ? -1 : takeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long takeLocked() {
+        long hopEnd = pendingHops[head];
+        head = (head + 1) % pendingHops.length;
+        count--;
+        return hopEnd;
+    }
+
+    /**
+     * Release any waiting consumer. Subsequent waits return -1 immediately.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            hopAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return total hops queued since creation.
+     */
+    public long getHopsScheduled() {
+        lock.lock();
+        try {
+            return hopsScheduled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return total hops discarded because the consumer had fallen too far behind.
+     */
+    public long getHopsDropped() {
+        lock.lock();
+        try {
+            return hopsDropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Accumulates the RMS level of float PCM samples.
+ *
+ * Levels are reported on the 16-bit PCM scale (full scale = 32768), so decibel values match
+ * what the service has always computed from raw {@code short} reads.
+ */
+public class LevelMeter implements PcmRingBuffer.SegmentConsumer {
+    private static final double PCM16_FULL_SCALE = 32768.0;
+
+    private double sumOfSquares;
+    private int sampleCount;
+
+    public void reset() {
+        sumOfSquares = 0;
+        sampleCount = 0;
+    }
+
+    @Override
+    public void accept(float[] samples, int offset, int length) {
+        double sum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += samples[i] * samples[i];
+        }
+        sumOfSquares += sum;
+        sampleCount += length;
+    }
+
+    /**
+     * @return number of samples accumulated since the last reset.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return RMS of the accumulated samples on the 16-bit PCM scale.
+     */
+    public double rms() {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        return Math.sqrt(sumOfSquares / sampleCount) * PCM16_FULL_SCALE;
+    }
+
+    /**
+     * @return level of the accumulated samples in dB relative to one 16-bit PCM step, or 0 for silence.
+     */
+    public double decibel() {
+        double rms = rms();
+        return rms > 0 ? 20 * Math.log10(rms) : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Sample format conversion and normalization shared by file loading and model preprocessing.
+ *
+ * Plain loops over primitive arrays; nothing here allocates.
+ */
+public final class PcmConversion {
+    private static final float PCM16_FULL_SCALE = 32768.0f;
+
+    private PcmConversion() {
+    }
+
+    /**
+     * Decode little-endian signed 16-bit PCM into floats in [-1, 1).
+     *
+     * @param src       Raw bytes.
+     * @param srcOffset Byte offset of the first sample.
+     * @param dst       Receives {@code count} samples.
+     * @param dstOffset Index of the first output sample.
+     * @param count     Number of samples to decode.
+     */
+    public static void pcm16LeToFloat(byte[] src, int srcOffset, float[] dst, int dstOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            int b = srcOffset + 2 * i;
+            dst[dstOffset + i] = ((src[b + 1] << 8) | (src[b] & 0xFF)) / PCM16_FULL_SCALE;
+        }
+    }
+
+    /**
+     * Scale samples in place so the largest positive sample is at most 1.
+     * Quiet input (peak at or below 1) is left unchanged.
+     *
+     * @return the divisor that was applied.
+     */
+    public static float normalizePeak(float[] samples, int offset, int length) {
+        float maxAmplitude = 1.0f;
+        for (int i = offset; i < offset + length; i++) {
+            if (samples[i] > maxAmplitude) maxAmplitude = samples[i];
+        }
+        if (maxAmplitude == 1.0f) {
+            return maxAmplitude;
+        }
+        float scale = 1.0f / maxAmplitude;
+        for (int i = offset; i < offset + length; i++) {
+            samples[i] *= scale;
+        }
+        return maxAmplitude;
+    }
+}
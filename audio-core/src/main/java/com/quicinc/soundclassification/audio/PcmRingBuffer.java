@@ -0,0 +1,242 @@
+package com.quicinc.soundclassification.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated, lock-free ring buffer of float PCM samples with a single producer
+ * (the capture thread) and any number of consumers.
+ *
+ * Samples are addressed by their absolute position in the stream (the number of samples
+ * written before them). Consumers never copy out of the ring: they are handed one or two
+ * contiguous segments of the backing array that together cover the requested range.
+ *
+ * The producer never waits for consumers. A consumer that falls more than
+ * {@link #capacity()} - {@link #guardSize()} samples behind the producer has lost data;
+ * reads over such a range are rejected instead of returning torn audio.
+ */
+public class PcmRingBuffer {
+    /**
+     * Receives a contiguous view of the ring. The array must not be retained or modified.
+     *
+     * The samples may be overwritten while the consumer looks at them. Whatever a consumer
+     * derives from them is only valid once the read that delivered them returns true; on false
+     * it must be thrown away.
+     */
+    public interface SegmentConsumer {
+        void accept(float[] samples, int offset, int length);
+    }
+
+    private final float[] samples;
+    private final int mask;
+    private final int guardSize;
+
+    // Absolute position one past the last published sample. Only the producer writes it.
+    private final AtomicLong writePosition = new AtomicLong();
+
+    // Written by consumers after visiting samples and before re-checking the write position.
+    // The volatile store keeps the sample loads from drifting past that re-check.
+    @SuppressWarnings("unused")
+    private volatile long readFence;
+
+    /**
+     * @param minCapacity Minimum number of samples to keep. Rounded up to a power of two.
+     * @param guardSize   Largest number of samples the producer writes in one call.
+     *                    That many of the oldest samples are treated as "being overwritten" by readers.
+     */
+    public PcmRingBuffer(int minCapacity, int guardSize) {
+        if (minCapacity <= 0 || guardSize <= 0 || guardSize >= minCapacity) {
+            throw new IllegalArgumentException("Invalid ring size: capacity " + minCapacity + ", guard " + guardSize);
+        }
+        int capacity = Integer.highestOneBit(minCapacity - 1) << 1;
+        samples = new float[Math.max(capacity, 2)];
+        mask = samples.length - 1;
+        this.guardSize = guardSize;
+    }
+
+    /**
+     * @return number of samples the ring holds.
+     */
+    public int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * @return largest single write the producer may publish.
+     */
+    public int guardSize() {
+        return guardSize;
+    }
+
+    /**
+     * @return absolute position one past the newest published sample.
+     */
+    public long writePosition() {
+        return writePosition.get();
+    }
+
+    /**
+     * @return absolute position of the oldest sample that can still be read safely.
+     */
+    public long oldestReadablePosition() {
+        return Math.max(0, writePosition.get() - (samples.length - guardSize));
+    }
+
+    // ---------------------------------------------------------------------
+    // Producer side. Must only be called from a single thread.
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return backing array the producer may fill in place (see {@link #writeOffset()}).
+     */
+    public float[] producerArray() {
+        return samples;
+    }
+
+    /**
+     * @return index in {@link #producerArray()} where the next sample will be written.
+     */
+    public int writeOffset() {
+        return (int) (writePosition.get() & mask);
+    }
+
+    /**
+     * @param maxSamples Number of samples the producer would like to write.
+     * @return how many of them fit contiguously from {@link #writeOffset()} without wrapping.
+     */
+    public int contiguousWritable(int maxSamples) {
+        return Math.min(Math.min(maxSamples, guardSize), samples.length - writeOffset());
+    }
+
+    /**
+     * Publish samples previously written in place at {@link #writeOffset()}.
+     *
+     * @param count Number of samples written. Must not exceed {@link #contiguousWritable(int)}.
+     */
+    public void commit(int count) {
+        writePosition.lazySet(writePosition.get() + count);
+    }
+
+    /**
+     * Copy and publish samples.
+     */
+    public void write(float[] src, int offset, int length) {
+        while (length > 0) {
+            int n = contiguousWritable(length);
+            System.arraycopy(src, offset, samples, writeOffset(), n);
+            commit(n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Convert 16-bit PCM to float in [-1.0, 1.0) and publish it.
+     */
+    public void write(short[] src, int offset, int length) {
+        while (length > 0) {
+            int n = contiguousWritable(length);
+            int dst = writeOffset();
+            for (int i = 0; i < n; i++) {
+                samples[dst + i] = src[offset + i] / 32768.0f;
+            }
+            commit(n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Consumer side. Safe from any thread.
+    // ---------------------------------------------------------------------
+
+    /**
+     * Visit the samples in [start, start + length) without copying.
+     *
+     * @return false if the range has not been fully written yet, or was (or may have been)
+     *         overwritten while it was being read. The consumer may already have seen part or all
+     *         of the range and must discard everything it accumulated from this call.
+     */
+    public boolean read(long start, int length, SegmentConsumer consumer) {
+        if (length < 0 || length > samples.length - guardSize) {
+            throw new IllegalArgumentException("Cannot read " + length + " samples from a ring of " + samples.length);
+        }
+        if (start < oldestReadablePosition() || start + length > writePosition.get()) {
+            return false;
+        }
+
+        int first = (int) (start & mask);
+        int firstLength = Math.min(length, samples.length - first);
+        consumer.accept(samples, first, firstLength);
+        if (firstLength < length) {
+            consumer.accept(samples, 0, length - firstLength);
+        }
+
+        // The producer may have lapped us while the consumer was looking at the data.
+        // Fence first so the check below is not satisfied before the samples were actually loaded.
+        readFence = start;
+        return start >= oldestReadablePosition();
+    }
+
+    /**
+     * Create a sequential consumer that starts at the current write position.
+     */
+    public Reader newReader() {
+        return new Reader(writePosition.get());
+    }
+
+    /**
+     * Sequential cursor over the ring. Each reader is owned by a single consumer thread.
+     */
+    public final class Reader {
+        private long position;
+        private long droppedSamples;
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        /**
+         * @return absolute position of the next sample this reader will see.
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * @return total samples this reader skipped because the producer overran it.
+         */
+        public long droppedSamples() {
+            return droppedSamples;
+        }
+
+        /**
+         * @return samples published but not yet consumed by this reader.
+         */
+        public long available() {
+            return writePosition.get() - position;
+        }
+
+        /**
+         * Consume up to {@code maxSamples} samples, skipping ahead first if the producer overran this reader.
+         *
+         * @return number of samples consumed. On 0 the consumer may still have been handed
+         *         overwritten samples and must discard them (see {@link PcmRingBuffer#read}).
+         */
+        public int poll(int maxSamples, SegmentConsumer consumer) {
+            long oldest = oldestReadablePosition();
+            if (position < oldest) {
+                droppedSamples += oldest - position;
+                position = oldest;
+            }
+            int length = (int) Math.min(maxSamples, available());
+            if (length <= 0) {
+                return 0;
+            }
+            if (!read(position, length, consumer)) {
+                return 0;
+            }
+            position += length;
+            return length;
+        }
+    }
+}
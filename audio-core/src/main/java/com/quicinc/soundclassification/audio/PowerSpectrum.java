@@ -0,0 +1,91 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Hann-windowed power spectrum of fixed-size real frames.
+ *
+ * Radix-2 FFT with twiddles, window and bit-reversal tables computed once; computing a spectrum
+ * does not allocate. Not thread-safe.
+ */
+public class PowerSpectrum {
+    private final int size;
+    private final float[] window;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] bitReversed;
+    private final float[] re;
+    private final float[] im;
+    private final float[] power;
+
+    /**
+     * @param size Frame length. Must be a power of two.
+     */
+    public PowerSpectrum(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        window = new float[size];
+        cos = new float[size / 2];
+        sin = new float[size / 2];
+        bitReversed = new int[size];
+        re = new float[size];
+        im = new float[size];
+        power = new float[size / 2 + 1];
+
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (size - 1)));
+            bitReversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        for (int i = 0; i < size / 2; i++) {
+            cos[i] = (float) Math.cos(-2 * Math.PI * i / size);
+            sin[i] = (float) Math.sin(-2 * Math.PI * i / size);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of bins in the spectrum (DC through Nyquist).
+     */
+    public int getBinCount() {
+        return power.length;
+    }
+
+    /**
+     * Compute the power spectrum of {@code size} samples starting at {@code offset}.
+     *
+     * @return power per bin, DC through Nyquist. The array is reused by the next call.
+     */
+    public float[] compute(float[] samples, int offset) {
+        for (int i = 0; i < size; i++) {
+            re[bitReversed[i]] = samples[offset + i] * window[i];
+            im[bitReversed[i]] = 0;
+        }
+
+        for (int half = 1; half < size; half <<= 1) {
+            int step = size / (2 * half);
+            for (int start = 0; start < size; start += 2 * half) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+
+        for (int i = 0; i < power.length; i++) {
+            power[i] = re[i] * re[i] + im[i] * im[i];
+        }
+        return power;
+    }
+}
@@ -0,0 +1,122 @@
+package com.quicinc.soundclassification.audio;
+
+/**
+ * Incremental sliding window over a PCM stream.
+ *
+ * Accepts chunks of any size as they arrive and emits a window of {@code windowSize} samples every
+ * {@code stride} samples. The window is kept in a mirrored buffer (each sample is stored twice,
+ * {@code windowSize} apart), so the newest window is always one contiguous slice of the buffer and
+ * can be handed to the listener without copying. Memory use is fixed at {@code 2 * windowSize} floats
+ * regardless of how long the stream runs.
+ */
+public class SlidingWindowStream {
+    /**
+     * Receives each complete window.
+     */
+    public interface WindowListener {
+        /**
+         * @param samples     Buffer holding the window at [offset, offset + windowSize).
+         *                    Only valid for the duration of the call; do not retain or modify.
+         * @param offset      Start of the window in {@code samples}.
+         * @param startSample Absolute stream position of the first sample in the window.
+         */
+        void onWindow(float[] samples, int offset, long startSample);
+    }
+
+    private final int windowSize;
+    private final int stride;
+    private final float[] buffer;
+    private final WindowListener listener;
+
+    private int writeIndex;
+    private long samplesPushed;
+    private long nextWindowEnd;
+
+    /**
+     * @param windowSize Samples per emitted window.
+     * @param stride     Samples between the starts of consecutive windows (the hop size).
+     * @param listener   Receives each window on the thread calling {@code push}.
+     */
+    public SlidingWindowStream(int windowSize, int stride, WindowListener listener) {
+        if (windowSize <= 0 || stride <= 0) {
+            throw new IllegalArgumentException("Invalid window " + windowSize + " / stride " + stride);
+        }
+        this.windowSize = windowSize;
+        this.stride = stride;
+        this.buffer = new float[2 * windowSize];
+        this.listener = listener;
+        reset();
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * @return absolute stream position one past the last pushed sample.
+     */
+    public long getSamplesPushed() {
+        return samplesPushed;
+    }
+
+    /**
+     * Forget all buffered audio. The next window is emitted once {@code windowSize} new samples arrive.
+     */
+    public void reset() {
+        writeIndex = 0;
+        samplesPushed = 0;
+        nextWindowEnd = windowSize;
+    }
+
+    /**
+     * Append float samples, emitting every window they complete.
+     */
+    public void push(float[] samples, int offset, int length) {
+        while (length > 0) {
+            int n = (int) Math.min(Math.min(length, windowSize), nextWindowEnd - samplesPushed);
+            int first = Math.min(n, windowSize - writeIndex);
+            // Write each sample twice so the newest window is always contiguous.
+            System.arraycopy(samples, offset, buffer, writeIndex, first);
+            System.arraycopy(samples, offset, buffer, writeIndex + windowSize, first);
+            if (first < n) {
+                System.arraycopy(samples, offset + first, buffer, 0, n - first);
+                System.arraycopy(samples, offset + first, buffer, windowSize, n - first);
+            }
+            advance(n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Append 16-bit PCM samples (converted to [-1.0, 1.0)), emitting every window they complete.
+     */
+    public void push(short[] samples, int offset, int length) {
+        while (length > 0) {
+            int n = (int) Math.min(length, nextWindowEnd - samplesPushed);
+            for (int i = 0; i < n; i++) {
+                float value = samples[offset + i] / 32768.0f;
+                int index = (writeIndex + i) % windowSize;
+                buffer[index] = value;
+                buffer[index + windowSize] = value;
+            }
+            advance(n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void advance(int count) {
+        writeIndex = (writeIndex + count) % windowSize;
+        samplesPushed += count;
+        if (samplesPushed == nextWindowEnd) {
+            // The last windowSize samples start at writeIndex in the mirrored buffer.
+            listener.onWindow(buffer, writeIndex, samplesPushed - windowSize);
+            nextWindowEnd += stride;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.quicinc.soundclassification.audio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped reader for RIFF/WAVE files (and headerless PCM16 recordings).
+ *
+ * The header is parsed once; the sample data is mapped read-only with {@link FileChannel#map} and
+ * decoded to mono float only when a chunk is read, straight into the caller's array. Reading a file
+ * of any length therefore needs no heap beyond the caller's chunk buffer; pages are loaded and
+ * evicted by the OS.
+ *
+ * Supported encodings: 16-bit PCM and 32-bit IEEE float (also inside WAVE_FORMAT_EXTENSIBLE),
+ * mono or stereo. Stereo is downmixed by averaging the channels.
+ *
+ * Not thread-safe: one reader per thread.
+ */
+public class WavReader implements Closeable {
+    /**
+     * Sample encodings this reader can decode.
+     */
+    public enum Encoding {
+        PCM_16,
+        PCM_FLOAT
+    }
+
+    /** Sample rate assumed for files without a RIFF header (raw captures from the app). */
+    public static final int RAW_PCM_SAMPLE_RATE = 16000;
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    // Keep each mapping well under the 2 GB limit of a single MappedByteBuffer.
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final RandomAccessFile file;
+    private final Encoding encoding;
+    private final int channels;
+    private final int sampleRate;
+    private final int frameBytes;
+    private final long frameCount;
+    private final long framesPerSegment;
+    private final MappedByteBuffer[] segments;
+    private long position;
+
+    private WavReader(RandomAccessFile file, Encoding encoding, int channels, int sampleRate,
+                      long dataOffset, long dataBytes) throws IOException {
+        this.file = file;
+        this.encoding = encoding;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.frameBytes = channels * (encoding == Encoding.PCM_16 ? 2 : 4);
+        this.frameCount = dataBytes / frameBytes;
+        this.framesPerSegment = MAX_SEGMENT_BYTES / frameBytes;
+
+        FileChannel channel = file.getChannel();
+        int segmentCount = (int) ((frameCount + framesPerSegment - 1) / framesPerSegment);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            long firstFrame = s * framesPerSegment;
+            long frames = Math.min(framesPerSegment, frameCount - firstFrame);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + firstFrame * frameBytes, frames * frameBytes);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Open a WAV file, or a headerless file of mono 16-bit PCM at {@link #RAW_PCM_SAMPLE_RATE}.
+     *
+     * @throws IOException If the file cannot be read, or its encoding or channel count is unsupported.
+     */
+    public static WavReader open(File audioFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(audioFile, "r");
+        try {
+            return parse(file);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static WavReader parse(RandomAccessFile file) throws IOException {
+        FileChannel channel = file.getChannel();
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (readAt(channel, header, 0, 12) < 12 || header.getInt(0) != fourCC("RIFF") || header.getInt(8) != fourCC("WAVE")) {
+            return new WavReader(file, Encoding.PCM_16, 1, RAW_PCM_SAMPLE_RATE, 0, fileSize);
+        }
+
+        Encoding encoding = null;
+        int channels = 0;
+        int sampleRate = 0;
+        long chunkOffset = 12;
+        while (chunkOffset + 8 <= fileSize) {
+            readAt(channel, header, chunkOffset, 8);
+            int id = header.getInt(0);
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            long body = chunkOffset + 8;
+
+            if (id == fourCC("fmt ")) {
+                int read = readAt(channel, header, body, (int) Math.min(size, header.capacity()));
+                if (read < 16) {
+                    throw new IOException("Truncated WAV fmt chunk");
+                }
+                int format = header.getShort(0) & 0xFFFF;
+                channels = header.getShort(2) & 0xFFFF;
+                sampleRate = header.getInt(4);
+                int bitsPerSample = header.getShort(14) & 0xFFFF;
+                if (format == FORMAT_EXTENSIBLE && read >= 26) {
+                    // First two bytes of the sub-format GUID carry the real format code.
+                    format = header.getShort(24) & 0xFFFF;
+                }
+                encoding = toEncoding(format, bitsPerSample);
+                if (channels < 1 || channels > 2) {
+                    throw new IOException("Unsupported WAV channel count: " + channels);
+                }
+            } else if (id == fourCC("data")) {
+                if (encoding == null) {
+                    throw new IOException("WAV data chunk before fmt chunk");
+                }
+                // Recorders that were interrupted leave a bogus size; trust the file length instead.
+                long dataBytes = Math.min(size, fileSize - body);
+                return new WavReader(file, encoding, channels, sampleRate, body, dataBytes);
+            }
+            // Chunks are padded to an even size.
+            chunkOffset = body + size + (size & 1);
+        }
+        throw new IOException("WAV file has no data chunk");
+    }
+
+    private static Encoding toEncoding(int format, int bitsPerSample) throws IOException {
+        if (format == FORMAT_PCM && bitsPerSample == 16) {
+            return Encoding.PCM_16;
+        }
+        if (format == FORMAT_IEEE_FLOAT && bitsPerSample == 32) {
+            return Encoding.PCM_FLOAT;
+        }
+        throw new IOException("Unsupported WAV encoding: format " + format + ", " + bitsPerSample + " bits");
+    }
+
+    private static int readAt(FileChannel channel, ByteBuffer buffer, long offset, int length) throws IOException {
+        buffer.clear().limit(length);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static int fourCC(String id) {
+        return id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return length of the recording in frames (samples per channel).
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return index of the next frame {@link #read} returns.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    public void seek(long frame) {
+        if (frame < 0 || frame > frameCount) {
+            throw new IllegalArgumentException("Frame " + frame + " outside [0, " + frameCount + "]");
+        }
+        position = frame;
+    }
+
+    /**
+     * Decode up to {@code maxFrames} frames at the current position into mono floats in [-1, 1].
+     *
+     * @return number of frames decoded, or -1 at the end of the data.
+     */
+    public int read(float[] dst, int offset, int maxFrames) {
+        if (position >= frameCount) {
+            return -1;
+        }
+        int total = (int) Math.min(maxFrames, frameCount - position);
+        int done = 0;
+        while (done < total) {
+            int segment = (int) (position / framesPerSegment);
+            int frameInSegment = (int) (position - segment * framesPerSegment);
+            int count = (int) Math.min(total - done, framesPerSegment - frameInSegment);
+            decode(segments[segment], frameInSegment * frameBytes, dst, offset + done, count);
+            done += count;
+            position += count;
+        }
+        return total;
+    }
+
+    private void decode(ByteBuffer src, int byteOffset, float[] dst, int dstOffset, int frames) {
+        if (encoding == Encoding.PCM_16) {
+            if (channels == 1) {
+                for (int i = 0; i < frames; i++) {
+                    dst[dstOffset + i] = src.getShort(byteOffset + 2 * i) / 32768.0f;
+                }
+            } else {
+                for (int i = 0; i < frames; i++) {
+                    int b = byteOffset + 4 * i;
+                    dst[dstOffset + i] = (src.getShort(b) + src.getShort(b + 2)) / 65536.0f;
+                }
+            }
+        } else {
+            if (channels == 1) {
+                for (int i = 0; i < frames; i++) {
+                    dst[dstOffset + i] = src.getFloat(byteOffset + 4 * i);
+                }
+            } else {
+                for (int i = 0; i < frames; i++) {
+                    int b = byteOffset + 8 * i;
+                    dst[dstOffset + i] = (src.getFloat(b) + src.getFloat(b + 4)) * 0.5f;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.quicinc.soundclassification.backups;
+
+import com.quicinc.soundclassification.audio.WavReader;
+
+import java.io.File;
+import java.io.IOException;
+
+public class AudioProcessing {
+    /**
+     * Load a whole recording as mono float PCM.
+     * WAV headers are parsed; headerless files are read as 16-bit PCM. The samples are decoded from
+     * a memory-mapped view straight into the result, so the file is never copied on the heap.
+     * Prefer {@link WavReader} chunks for long recordings.
+     */
+    public static float[] loadAudioFromFile(File audioFile) {
+        try (WavReader reader = WavReader.open(audioFile)) {
+            if (reader.getFrameCount() > Integer.MAX_VALUE) {
+                throw new IOException("Recording too long to load at once: " + reader.getFrameCount() + " frames");
+            }
+            float[] audioData = new float[(int) reader.getFrameCount()];
+            reader.read(audioData, 0, audioData.length);
+            return audioData;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.quicinc.soundclassification.classification;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of classifiers that hands each one to at most one thread at a time.
+ *
+ * Classifiers (and the TFLite interpreters behind them) are not thread-safe. A thread borrows one
+ * with {@link #acquire()} and gives it back by closing the {@link Lease}; between the two it has the
+ * classifier to itself. Handing a classifier over through the pool's queue also publishes every
+ * write the previous holder made, so per-instance state needs no further synchronization.
+ *
+ * A long-running consumer (the live classification loop) simply holds its lease for as long as it
+ * runs; short jobs borrow per request.
+ *
+ * The pool records how long callers waited and how much of the time its members were leased.
+ *
+ * @param <T> Classifier type.
+ */
+public class ClassifierPool<T extends WindowClassifier> implements AutoCloseable {
+    /**
+     * Exclusive use of one pool member. Close it to return the member; closing twice is harmless.
+     */
+    public final class Lease implements AutoCloseable {
+        private final T classifier;
+        private final long leasedAt;
+        private boolean released;
+
+        Lease(T classifier, long leasedAt) {
+            this.classifier = classifier;
+            this.leasedAt = leasedAt;
+        }
+
+        public T get() {
+            if (released) {
+                throw new IllegalStateException("Lease already returned");
+            }
+            return classifier;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            release(this);
+        }
+    }
+
+    private final List<T> members;
+    private final BlockingQueue<T> idle;
+    private final long createdAt = System.nanoTime();
+    private volatile boolean closed;
+
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    // Busy time of returned leases, plus enough to derive the busy time of active ones:
+    // active busy time = activeLeases * now - activeLeaseStartSum.
+    private final AtomicLong completedBusyNanos = new AtomicLong();
+    private final AtomicLong activeLeases = new AtomicLong();
+    private final AtomicLong activeLeaseStartSum = new AtomicLong();
+
+    /**
+     * @param members Classifiers to pool. Owned by the pool: those that are {@link AutoCloseable}
+     *                are closed by {@link #close()} (or when returned after it).
+     */
+    public ClassifierPool(List<T> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("Pool needs at least one classifier");
+        }
+        this.members = members;
+        this.idle = new ArrayBlockingQueue<>(members.size(), false, members);
+    }
+
+    /**
+     * Borrow a classifier, waiting until one is free.
+     *
+     * @throws IllegalStateException If the pool is closed.
+     */
+    public Lease acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        checkOpen();
+        T classifier = idle.take();
+        return lease(classifier, start);
+    }
+
+    /**
+     * Borrow a classifier, waiting at most {@code timeout}.
+     *
+     * @return the lease, or null if none became free in time.
+     * @throws IllegalStateException If the pool is closed.
+     */
+    public Lease acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        checkOpen();
+        T classifier = idle.poll(timeout, unit);
+        return classifier == null ? null : lease(classifier, start);
+    }
+
+    private Lease lease(T classifier, long requestedAt) {
+        if (closed) {
+            // Closed while we waited; the member must not be used any more.
+            closeMember(classifier);
+            throw new IllegalStateException("Classifier pool is closed");
+        }
+        long now = System.nanoTime();
+        long wait = now - requestedAt;
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(wait);
+        long max;
+        while (wait > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, wait)) {
+            // retry
+        }
+        activeLeases.incrementAndGet();
+        activeLeaseStartSum.addAndGet(now);
+        return new Lease(classifier, now);
+    }
+
+    private void release(Lease lease) {
+        long now = System.nanoTime();
+        completedBusyNanos.addAndGet(now - lease.leasedAt);
+        activeLeaseStartSum.addAndGet(-lease.leasedAt);
+        activeLeases.decrementAndGet();
+        idle.add(lease.classifier);
+        // If close() ran concurrently it may have drained the queue before this member came back.
+        if (closed && idle.remove(lease.classifier)) {
+            closeMember(lease.classifier);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Classifier pool is closed");
+        }
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @return classifiers not currently leased.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * @return mean time callers waited for a classifier, in nanoseconds.
+     */
+    public long getMeanWaitNanos() {
+        long count = acquireCount.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / count;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return fraction of the pool's lifetime its members spent leased, averaged over members (0..1).
+     */
+    public double getUtilization() {
+        // Read the active pair first; a lease returned in between only makes the estimate slightly low.
+        long now = System.nanoTime();
+        long active = activeLeases.get();
+        long activeStartSum = activeLeaseStartSum.get();
+        long busy = completedBusyNanos.get() + Math.max(0, active * now - activeStartSum);
+        long capacity = (now - createdAt) * members.size();
+        return capacity <= 0 ? 0 : Math.min(1.0, (double) busy / capacity);
+    }
+
+    /**
+     * Close idle members now and leased members as they are returned. Further acquires fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        T classifier;
+        while ((classifier = idle.poll()) != null) {
+            closeMember(classifier);
+        }
+    }
+
+    private static void closeMember(Object classifier) {
+        if (classifier instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) classifier).close();
+            } catch (Exception e) {
+                // Closing is best effort.
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClassifierPool{size=" + members.size()
+                + ", idle=" + idle.size()
+                + ", acquires=" + acquireCount.get()
+                + ", meanWaitUs=" + getMeanWaitNanos() / 1000
+                + ", maxWaitUs=" + maxWaitNanos.get() / 1000
+                + ", utilization=" + String.format("%.2f", getUtilization()) + "}";
+    }
+}
@@ -0,0 +1,270 @@
+package com.quicinc.soundclassification.classification;
+
+import com.quicinc.soundclassification.audio.WavReader;
+import com.quicinc.soundclassification.postprocess.EventTimeline;
+import com.quicinc.soundclassification.postprocess.ScoreAggregator;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Sliding-window analysis of one long recording spread over several classifiers.
+ *
+ * The recording is cut into chunks of {@code windowsPerChunk} consecutive windows (chunk boundaries
+ * are aligned to the stride, and each chunk carries the overlap its last window needs). Chunks run
+ * on a fork-join pool with one worker per classifier; a worker borrows a classifier for the whole
+ * chunk, so no classifier is ever used by two threads at once. Results are handed to the listener
+ * on the calling thread in window order, exactly as the serial {@link SlidingWindowInference} would.
+ *
+ * At most two chunks per worker are in flight, and their buffers are reused, so memory stays
+ * bounded regardless of the recording length.
+ *
+ * One analysis at a time per instance.
+ */
+public class ParallelSlidingWindowInference implements AutoCloseable {
+    /**
+     * Timing of one analysis.
+     */
+    public static class Report {
+        public final int windows;
+        public final long samples;
+        public final int sampleRate;
+        public final long elapsedNanos;
+
+        Report(int windows, long samples, int sampleRate, long elapsedNanos) {
+            this.windows = windows;
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return processing time divided by audio duration; below 1 is faster than real time.
+         */
+        public double getRealTimeFactor() {
+            return samples == 0 ? 0 : (elapsedNanos / 1e9) / ((double) samples / sampleRate);
+        }
+
+        @Override
+        public String toString() {
+            return windows + " windows, " + samples + " samples in " + elapsedNanos / 1000000 + " ms (RTF "
+                    + String.format("%.4f", getRealTimeFactor()) + ")";
+        }
+    }
+
+    private final int windowSize;
+    private final int numClasses;
+    private final int stride;
+    private final int windowsPerChunk;
+    private final BlockingQueue<WindowClassifier> idleClassifiers;
+    private final List<? extends WindowClassifier> classifiers;
+    private final ForkJoinPool pool;
+    private final Chunk[] chunks;
+
+    /**
+     * @param classifiers     One classifier per worker. All must share window size and class count.
+     *                        Owned by this instance: those that are {@link AutoCloseable} are closed by {@link #close()}.
+     * @param stride          Samples between consecutive windows.
+     * @param windowsPerChunk Windows per unit of work. Larger chunks amortize scheduling; smaller
+     *                        ones balance better near the end of the recording.
+     */
+    public ParallelSlidingWindowInference(List<? extends WindowClassifier> classifiers, int stride, int windowsPerChunk) {
+        if (classifiers.isEmpty() || stride <= 0 || windowsPerChunk <= 0) {
+            throw new IllegalArgumentException("Need at least one classifier, a positive stride and chunk size");
+        }
+        this.classifiers = classifiers;
+        this.windowSize = classifiers.get(0).getWindowSize();
+        this.numClasses = classifiers.get(0).getNumClasses();
+        for (WindowClassifier classifier : classifiers) {
+            if (classifier.getWindowSize() != windowSize || classifier.getNumClasses() != numClasses) {
+                throw new IllegalArgumentException("Classifiers disagree on window size or class count");
+            }
+        }
+        this.stride = stride;
+        this.windowsPerChunk = windowsPerChunk;
+        this.idleClassifiers = new ArrayBlockingQueue<>(classifiers.size(), false, classifiers);
+        this.pool = new ForkJoinPool(classifiers.size());
+
+        chunks = new Chunk[2 * classifiers.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk();
+        }
+    }
+
+    public int getParallelism() {
+        return classifiers.size();
+    }
+
+    /**
+     * Classify every window of {@code audio}.
+     *
+     * @param listener Receives every window's scores in order, on the calling thread.
+     */
+    public Report analyze(float[] audio, int offset, int length, int sampleRate,
+                          StreamingSoundClassification.ScoresListener listener) throws InterruptedException {
+        long startTime = System.nanoTime();
+        int windows = countWindows(length);
+        run(windows, listener, (chunk, firstWindow) -> {
+            // Workers read the caller's array directly.
+            chunk.samples = audio;
+            chunk.sampleOffset = offset + (int) ((long) firstWindow * stride);
+        });
+        return new Report(windows, length, sampleRate, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Classify every window of a recording read from {@code reader}'s current position to its end.
+     * The calling thread decodes each chunk (with its overlap) while the workers classify others.
+     *
+     * @param listener Receives every window's scores in order, on the calling thread.
+     */
+    public Report analyze(WavReader reader, StreamingSoundClassification.ScoresListener listener) throws InterruptedException {
+        long startTime = System.nanoTime();
+        long start = reader.getPosition();
+        long length = reader.getFrameCount() - start;
+        int windows = countWindows(length);
+        int chunkSamples = (windowsPerChunk - 1) * stride + windowSize;
+        run(windows, listener, (chunk, firstWindow) -> {
+            if (chunk.ownSamples == null) {
+                chunk.ownSamples = new float[chunkSamples];
+            }
+            reader.seek(start + (long) firstWindow * stride);
+            int count = Math.min(windowsPerChunk, windows - firstWindow);
+            int needed = (count - 1) * stride + windowSize;
+            int read = 0;
+            while (read < needed) {
+                int n = reader.read(chunk.ownSamples, read, needed - read);
+                if (n <= 0) break;
+                read += n;
+            }
+            chunk.samples = chunk.ownSamples;
+            chunk.sampleOffset = 0;
+        });
+        reader.seek(reader.getFrameCount());
+        return new Report(windows, length, reader.getSampleRate(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Classify every window of {@code audio} into an aggregator and, optionally, a timeline.
+     */
+    public Report analyze(float[] audio, int offset, int length, int sampleRate,
+                          ScoreAggregator aggregator, EventTimeline timeline) throws InterruptedException {
+        Report report = analyze(audio, offset, length, sampleRate, SlidingWindowInference.listener(aggregator, timeline));
+        if (timeline != null) timeline.finish();
+        return report;
+    }
+
+    /**
+     * Classify every window of a recording into an aggregator and, optionally, a timeline.
+     */
+    public Report analyze(WavReader reader, ScoreAggregator aggregator, EventTimeline timeline) throws InterruptedException {
+        Report report = analyze(reader, SlidingWindowInference.listener(aggregator, timeline));
+        if (timeline != null) timeline.finish();
+        return report;
+    }
+
+    private int countWindows(long length) {
+        if (length < windowSize) {
+            return 0;
+        }
+        long windows = 1 + (length - windowSize) / stride;
+        if (windows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recording too long: " + windows + " windows");
+        }
+        return (int) windows;
+    }
+
+    private interface ChunkLoader {
+        void load(Chunk chunk, int firstWindow);
+    }
+
+    private void run(int windows, StreamingSoundClassification.ScoresListener listener, ChunkLoader loader) throws InterruptedException {
+        int chunkCount = (windows + windowsPerChunk - 1) / windowsPerChunk;
+        int submitted = 0;
+        try {
+            for (int next = 0; next < chunkCount; next++) {
+                // Keep the pipeline full: up to chunks.length chunks in flight ahead of the merge.
+                while (submitted < chunkCount && submitted < next + chunks.length) {
+                    submit(chunks[submitted % chunks.length], submitted, windows, loader);
+                    submitted++;
+                }
+                Chunk chunk = chunks[next % chunks.length];
+                chunk.task.join();
+                chunk.task = null;
+                for (int w = 0; w < chunk.count; w++) {
+                    System.arraycopy(chunk.scores, w * numClasses, chunk.windowScores, 0, numClasses);
+                    listener.onScores(chunk.windowScores, (long) (chunk.firstWindow + w) * stride);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            // On failure, let already submitted chunks finish before their buffers are reused.
+            for (Chunk chunk : chunks) {
+                if (chunk.task != null) {
+                    chunk.task.quietlyJoin();
+                    chunk.task = null;
+                }
+            }
+        }
+    }
+
+    private void submit(Chunk chunk, int index, int windows, ChunkLoader loader) {
+        chunk.firstWindow = index * windowsPerChunk;
+        chunk.count = Math.min(windowsPerChunk, windows - chunk.firstWindow);
+        if (chunk.scores == null) {
+            chunk.scores = new float[windowsPerChunk * numClasses];
+            chunk.windowScores = new float[numClasses];
+        }
+        loader.load(chunk, chunk.firstWindow);
+        chunk.task = pool.submit(() -> classify(chunk));
+    }
+
+    private void classify(Chunk chunk) {
+        WindowClassifier classifier = idleClassifiers.poll();
+        if (classifier == null) {
+            // Cannot happen while at most one task runs per worker, but never share a classifier.
+            throw new IllegalStateException("No idle classifier");
+        }
+        try {
+            for (int w = 0; w < chunk.count; w++) {
+                float[] scores = classifier.runInference(chunk.samples, chunk.sampleOffset + w * stride, windowSize);
+                System.arraycopy(scores, 0, chunk.scores, w * numClasses, numClasses);
+            }
+        } finally {
+            idleClassifiers.add(classifier);
+        }
+    }
+
+    /**
+     * Shut down the workers and close the classifiers.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        for (WindowClassifier classifier : classifiers) {
+            if (classifier instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) classifier).close();
+                } catch (Exception e) {
+                    // Closing is best effort; keep closing the rest.
+                }
+            }
+        }
+    }
+
+    private static class Chunk {
+        int firstWindow;
+        int count;
+        float[] samples;
+        float[] ownSamples;
+        int sampleOffset;
+        float[] scores;
+        float[] windowScores;
+        ForkJoinTask<?> task;
+    }
+}
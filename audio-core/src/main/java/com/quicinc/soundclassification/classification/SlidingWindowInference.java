@@ -0,0 +1,87 @@
+package com.quicinc.soundclassification.classification;
+
+import com.quicinc.soundclassification.audio.WavReader;
+import com.quicinc.soundclassification.postprocess.EventTimeline;
+import com.quicinc.soundclassification.postprocess.ScoreAggregator;
+
+/**
+ * Offline sliding-window analysis of a recording, in memory or streamed from a file.
+ *
+ * Window scores are folded into a {@link ScoreAggregator} and, optionally, an {@link EventTimeline}
+ * as they are produced; nothing is kept per window, so memory use does not depend on the length of
+ * the recording.
+ */
+public final class SlidingWindowInference {
+    private SlidingWindowInference() {
+    }
+
+    /**
+     * Classify every window of {@code audio} and average the scores.
+     *
+     * @param classifier Model to run; its window size sets the window length.
+     * @param stride     Samples between consecutive windows.
+     * @return mean score per class, or null if the audio is shorter than one window.
+     */
+    public static float[] averageScores(WindowClassifier classifier, int stride, float[] audio, int offset, int length) {
+        ScoreAggregator mean = ScoreAggregator.mean(classifier.getNumClasses());
+        analyze(classifier, stride, audio, offset, length, mean, null);
+        return mean.result();
+    }
+
+    /**
+     * Classify every window of a recording read from {@code reader}'s current position to its end,
+     * and average the scores.
+     *
+     * @return mean score per class, or null if the recording is shorter than one window.
+     */
+    public static float[] averageScores(WindowClassifier classifier, int stride, WavReader reader) {
+        ScoreAggregator mean = ScoreAggregator.mean(classifier.getNumClasses());
+        analyze(classifier, stride, reader, mean, null);
+        return mean.result();
+    }
+
+    /**
+     * Classify every window of {@code audio}.
+     *
+     * @param aggregator Receives the scores of every window.
+     * @param timeline   Receives the scores of every window and is finished at the end. May be null.
+     * @return number of windows classified.
+     */
+    public static int analyze(WindowClassifier classifier, int stride, float[] audio, int offset, int length,
+                              ScoreAggregator aggregator, EventTimeline timeline) {
+        StreamingSoundClassification stream = new StreamingSoundClassification(classifier, stride, listener(aggregator, timeline));
+        stream.push(audio, offset, length);
+        if (timeline != null) timeline.finish();
+        return aggregator.getWindowCount();
+    }
+
+    /**
+     * Classify every window of a recording read from {@code reader}'s current position to its end.
+     * Samples are decoded one stride at a time.
+     *
+     * @param aggregator Receives the scores of every window.
+     * @param timeline   Receives the scores of every window and is finished at the end. May be null.
+     * @return number of windows classified.
+     */
+    public static int analyze(WindowClassifier classifier, int stride, WavReader reader,
+                              ScoreAggregator aggregator, EventTimeline timeline) {
+        StreamingSoundClassification stream = new StreamingSoundClassification(classifier, stride, listener(aggregator, timeline));
+        float[] chunk = new float[stride];
+        int read;
+        while ((read = reader.read(chunk, 0, chunk.length)) > 0) {
+            stream.push(chunk, 0, read);
+        }
+        if (timeline != null) timeline.finish();
+        return aggregator.getWindowCount();
+    }
+
+    static StreamingSoundClassification.ScoresListener listener(ScoreAggregator aggregator, EventTimeline timeline) {
+        if (timeline == null) {
+            return (scores, startSample) -> aggregator.add(scores);
+        }
+        return (scores, startSample) -> {
+            aggregator.add(scores);
+            timeline.add(scores, startSample);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.quicinc.soundclassification.classification;
+
+import com.quicinc.soundclassification.audio.SlidingWindowStream;
+
+/**
+ * Streaming front end for a {@link WindowClassifier}.
+ *
+ * PCM chunks of any size are pushed as they arrive; the model runs once every {@code stride} samples
+ * on the newest window and the scores are handed to a listener. Memory use does not grow with the
+ * length of the stream, so the same engine serves live capture and long recordings.
+ *
+ * Not thread-safe: push from one thread at a time. Results are delivered on the pushing thread.
+ */
+public class StreamingSoundClassification implements SlidingWindowStream.WindowListener {
+    /**
+     * Receives the model output for each window.
+     */
+    public interface ScoresListener {
+        /**
+         * @param scores      Per-class scores, indexed like the label list. Only valid for the duration of the call.
+         * @param startSample Absolute stream position of the first sample of the classified window.
+         */
+        void onScores(float[] scores, long startSample);
+    }
+
+    private final WindowClassifier classifier;
+    private final SlidingWindowStream window;
+    private final ScoresListener listener;
+
+    /**
+     * @param classifier Classifier to run on each window. Its input size sets the window length.
+     * @param stride     Samples between consecutive windows.
+     * @param listener   Receives the scores of each window.
+     */
+    public StreamingSoundClassification(WindowClassifier classifier, int stride, ScoresListener listener) {
+        this.classifier = classifier;
+        this.listener = listener;
+        this.window = new SlidingWindowStream(classifier.getWindowSize(), stride, this);
+    }
+
+    public void push(float[] samples, int offset, int length) {
+        window.push(samples, offset, length);
+    }
+
+    public void push(short[] samples, int offset, int length) {
+        window.push(samples, offset, length);
+    }
+
+    /**
+     * Drop buffered audio, e.g. after a gap in capture.
+     */
+    public void reset() {
+        window.reset();
+    }
+
+    public int getWindowSize() {
+        return window.getWindowSize();
+    }
+
+    public int getStride() {
+        return window.getStride();
+    }
+
+    @Override
+    public void onWindow(float[] samples, int offset, long startSample) {
+        float[] scores = classifier.runInference(samples, offset, window.getWindowSize());
+        listener.onScores(scores, startSample);
+    }
+}
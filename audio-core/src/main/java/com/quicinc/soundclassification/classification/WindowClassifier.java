@@ -0,0 +1,26 @@
+package com.quicinc.soundclassification.classification;
+
+/**
+ * A model that scores one fixed-size window of float PCM.
+ *
+ * This is all the streaming and aggregation code needs from a classifier, so it stays independent
+ * of the inference runtime (TFLite on device, a stand-in on the JVM).
+ */
+public interface WindowClassifier {
+    /**
+     * @return number of samples the model consumes per inference.
+     */
+    int getWindowSize();
+
+    /**
+     * @return number of classes in the model output.
+     */
+    int getNumClasses();
+
+    /**
+     * Run the model on {@code length} samples starting at {@code offset}.
+     *
+     * @return per-class scores. Implementations may reuse the array for the next inference.
+     */
+    float[] runInference(float[] samples, int offset, int length);
+}
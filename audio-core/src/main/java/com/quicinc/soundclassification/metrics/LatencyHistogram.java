@@ -0,0 +1,160 @@
+package com.quicinc.soundclassification.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory, lock-free latency histogram with logarithmic buckets.
+ *
+ * Every power of two is split into 8 linear sub-buckets, so a reported percentile is at most 12.5%
+ * above the true value, from 1 ns up to 2^40 ns (about 18 minutes; larger values are clamped).
+ * {@link #record(long)} is wait-free apart from the max update, does not allocate and may be
+ * called from any number of threads while another thread takes snapshots.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Count one measurement.
+     *
+     * @param nanos Latency in nanoseconds. Negative values count as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // lost a race with a larger or concurrent value; re-check
+        }
+    }
+
+    /**
+     * @return the counts so far. Measurements recorded while the snapshot is taken may be partly included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * Take a snapshot and start a new interval. Every measurement lands in exactly one interval,
+     * although one recorded during the call may have its max or total counted in the other.
+     */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.getAndSet(i, 0);
+        }
+        return new Snapshot(copy, totalNanos.getAndSet(0), maxNanos.getAndSet(0));
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest value that falls into {@code bucket}.
+     */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable view of a histogram at one point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] counts, long totalNanos, long maxNanos) {
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return mean latency in nanoseconds, or 0 if empty.
+         */
+        public long getMean() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long getMax() {
+            return maxNanos;
+        }
+
+        /**
+         * @param percentile In [0, 100].
+         * @return upper bound of the bucket holding the percentile, in nanoseconds (never above the max), or 0 if empty.
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        public long getP50() {
+            return getPercentile(50);
+        }
+
+        public long getP95() {
+            return getPercentile(95);
+        }
+
+        public long getP99() {
+            return getPercentile(99);
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + count + " p50=" + getP50() / 1000 + "us p95=" + getP95() / 1000 + "us p99="
+                    + getP99() / 1000 + "us max=" + maxNanos / 1000 + "us";
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.quicinc.soundclassification.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link LatencyHistogram} per stage of the live classification pipeline, plus end-to-end
+ * latencies measured from the capture time of the newest sample in a window
+ * (see {@link com.quicinc.soundclassification.audio.CaptureClock}).
+ *
+ * Recording is lock-free and allocation-free, so it can run on the capture and inference threads;
+ * snapshots are taken by a separate reporting thread, typically once per interval with
+ * {@link #snapshotAndReset()}.
+ */
+public final class PipelineMetrics {
+    public enum Stage {
+        /** Classifier thread blocked waiting for the capture thread to complete a hop. */
+        CAPTURE_WAIT,
+        /** Energy gate decision on the newest hop, plus the level and window copy when it passes. */
+        GATE,
+        /** Copying and converting a window into the model input. */
+        PREPROCESS,
+        /** Model invocation. */
+        INFERENCE,
+        /** Score smoothing, event detection and loudness check. */
+        POSTPROCESS,
+        /** Alert delivery: broadcast, vibration and flash. */
+        DISPATCH,
+        /** Age of a window when its inference started. */
+        WINDOW_STALENESS,
+        /** Capture of a window to the detector's decision on it. */
+        CAPTURE_TO_DECISION,
+        /** Capture of the window that confirmed an alert to the alert being delivered. */
+        CAPTURE_TO_ACTUATION
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @param nanos Time spent in the stage, in nanoseconds.
+     */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public Map<Stage, LatencyHistogram.Snapshot> snapshot() {
+        Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            snapshots.put(stage, get(stage).snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Take a snapshot of every stage and start a new interval.
+     */
+    public Map<Stage, LatencyHistogram.Snapshot> snapshotAndReset() {
+        Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            snapshots.put(stage, get(stage).snapshotAndReset());
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,145 @@
+package com.quicinc.soundclassification.pipeline;
+
+/**
+ * Decides, per window, whether classifying it can still produce a timely result.
+ *
+ * Each window's deadline is its capture time plus a latency budget. A window is skipped when a
+ * fresher one is already waiting (coalescing), or when the expected processing time would finish it
+ * past its deadline. Under overload the pipeline therefore keeps its latency bounded by working on
+ * the newest audio instead of a growing backlog. So that a device that is simply too slow for the
+ * budget still classifies something, a late window is processed anyway after
+ * {@code maxConsecutiveDrops} drops in a row.
+ *
+ * Used from one thread; the counters may be read from any thread.
+ */
+public final class DeadlineScheduler {
+    // EMA weight of the newest processing time
+    private static final double SMOOTHING = 0.2;
+
+    private final long budgetNanos;
+    private final int maxConsecutiveDrops;
+
+    private double expectedNanos;
+    private int consecutiveDrops;
+
+    private volatile long admitted;
+    private volatile long coalesced;
+    private volatile long droppedLate;
+    private volatile long lateCompletions;
+    private volatile long maxLagNanos;
+    private volatile double realTimeFactor;
+
+    /**
+     * @param budgetNanos         Longest acceptable time from capture of a window's newest sample to its result.
+     * @param maxConsecutiveDrops Late windows dropped in a row before one is processed anyway.
+     */
+    public DeadlineScheduler(long budgetNanos, int maxConsecutiveDrops) {
+        if (budgetNanos <= 0 || maxConsecutiveDrops < 0) {
+            throw new IllegalArgumentException("Invalid deadline settings: budget " + budgetNanos
+                    + ", drops " + maxConsecutiveDrops);
+        }
+        this.budgetNanos = budgetNanos;
+        this.maxConsecutiveDrops = maxConsecutiveDrops;
+    }
+
+    /**
+     * @param capturedAtNanos Capture time of the window's newest sample, or {@link Long#MIN_VALUE} if unknown.
+     * @param nowNanos        Current time on the same base.
+     * @param fresherWaiting  Whether a newer window is already queued behind this one.
+     * @return true to process the window now, false to skip it.
+     */
+    public boolean admit(long capturedAtNanos, long nowNanos, boolean fresherWaiting) {
+        if (fresherWaiting) {
+            coalesced++;
+            return false;
+        }
+        if (capturedAtNanos != Long.MIN_VALUE) {
+            long lag = nowNanos - capturedAtNanos;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            if (lag + (long) expectedNanos > budgetNanos && consecutiveDrops < maxConsecutiveDrops) {
+                consecutiveDrops++;
+                droppedLate++;
+                return false;
+            }
+        }
+        consecutiveDrops = 0;
+        admitted++;
+        return true;
+    }
+
+    /**
+     * Report that an admitted window was processed.
+     *
+     * @param capturedAtNanos Capture time of the window's newest sample, or {@link Long#MIN_VALUE} if unknown.
+     * @param startNanos      When processing started.
+     * @param endNanos        When the result was available.
+     * @param hopNanos        Audio time between this window and the previous one; the hop may change at runtime.
+     */
+    public void completed(long capturedAtNanos, long startNanos, long endNanos, long hopNanos) {
+        long processing = endNanos - startNanos;
+        expectedNanos = expectedNanos == 0 ? processing : expectedNanos + SMOOTHING * (processing - expectedNanos);
+        if (hopNanos > 0) {
+            double ratio = (double) processing / hopNanos;
+            realTimeFactor = realTimeFactor == 0 ? ratio : realTimeFactor + SMOOTHING * (ratio - realTimeFactor);
+        }
+        if (capturedAtNanos != Long.MIN_VALUE && endNanos - capturedAtNanos > budgetNanos) {
+            lateCompletions++;
+        }
+    }
+
+    /**
+     * @return smoothed processing time per window, in nanoseconds.
+     */
+    public long getExpectedProcessingNanos() {
+        return (long) expectedNanos;
+    }
+
+    /**
+     * @return smoothed ratio of processing time to the hop duration of each window; above 1 the
+     *         pipeline cannot classify every window.
+     */
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    public long getAdmittedCount() {
+        return admitted;
+    }
+
+    /**
+     * @return windows skipped because a fresher one was waiting.
+     */
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return windows skipped because they would have missed their deadline.
+     */
+    public long getDroppedLateCount() {
+        return droppedLate;
+    }
+
+    /**
+     * @return admitted windows whose result still came after the deadline.
+     */
+    public long getLateCompletionCount() {
+        return lateCompletions;
+    }
+
+    /**
+     * @return largest lag between capture and the admit decision seen so far, in nanoseconds.
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadlineScheduler{admitted=" + admitted + ", coalesced=" + coalesced + ", droppedLate=" + droppedLate
+                + ", late=" + lateCompletions + ", maxLag=" + maxLagNanos / 1000000 + "ms, expected="
+                + (long) expectedNanos / 1000000 + "ms, rtf=" + String.format("%.2f", realTimeFactor) + "}";
+    }
+}
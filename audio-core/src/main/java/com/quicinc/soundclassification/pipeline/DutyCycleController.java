@@ -0,0 +1,184 @@
+package com.quicinc.soundclassification.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Chooses how often to classify, trading reaction time for battery life.
+ *
+ * While the environment is quiet and stable the controller stays in {@link Mode#QUIET} with a long
+ * hop; any gate activity or candidate class switches it to {@link Mode#ACTIVE} with a dense hop on
+ * the very next decision. Both hops are stretched further when the battery is low and not charging,
+ * or when the device reports thermal pressure. The time spent in each mode is accumulated so the
+ * duty cycle can be checked against a day-long battery budget.
+ *
+ * {@link #onHop(boolean, long)} is called from one thread; the other methods from any thread.
+ */
+public final class DutyCycleController {
+    public enum Mode {
+        /** Dense hops: something is, or recently was, happening. */
+        ACTIVE,
+        /** Long hops: nothing has happened for a while. */
+        QUIET
+    }
+
+    /** {@code PowerManager.THERMAL_STATUS_MODERATE}. */
+    public static final int THERMAL_STATUS_MODERATE = 2;
+    /** {@code PowerManager.THERMAL_STATUS_SEVERE}. */
+    public static final int THERMAL_STATUS_SEVERE = 3;
+    static final int LOW_BATTERY_PERCENT = 30;
+    static final int CRITICAL_BATTERY_PERCENT = 15;
+
+    private final int activeHop;
+    private final int quietHop;
+    private final int maxHop;
+    private final long quietAfterNanos;
+
+    // Decision state, owned by the onHop thread.
+    private Mode mode = Mode.ACTIVE;
+    private long lastActivityNanos;
+    private long lastHopNanos;
+
+    private volatile boolean candidatePending;
+    private volatile int backoffPercent = 100;
+    private volatile int hopSize;
+    private volatile Mode currentMode = Mode.ACTIVE;
+
+    private final AtomicLongArray timeInMode = new AtomicLongArray(Mode.values().length);
+    private final AtomicLong throttledNanos = new AtomicLong();
+    private final AtomicLong modeSwitches = new AtomicLong();
+
+    /**
+     * @param activeHopSamples Hop while something is happening.
+     * @param quietHopSamples  Hop while the environment is quiet and stable.
+     * @param maxHopSamples    Upper bound after power backoff (e.g. what the audio buffer can hold).
+     * @param quietAfterNanos  Time without activity before switching to the quiet hop.
+     * @param nowNanos         Current time on the {@link System#nanoTime()} base.
+     */
+    public DutyCycleController(int activeHopSamples, int quietHopSamples, int maxHopSamples, long quietAfterNanos, long nowNanos) {
+        if (activeHopSamples <= 0 || quietHopSamples < activeHopSamples || maxHopSamples < activeHopSamples || quietAfterNanos < 0) {
+            throw new IllegalArgumentException("Invalid duty cycle: active " + activeHopSamples + ", quiet " + quietHopSamples
+                    + ", max " + maxHopSamples + ", quiet after " + quietAfterNanos);
+        }
+        this.activeHop = activeHopSamples;
+        this.quietHop = quietHopSamples;
+        this.maxHop = maxHopSamples;
+        this.quietAfterNanos = quietAfterNanos;
+        this.lastActivityNanos = nowNanos;
+        this.lastHopNanos = nowNanos;
+        this.hopSize = activeHopSamples;
+    }
+
+    /**
+     * Decide the next hop after the current one was examined.
+     *
+     * @param activity Whether the hop showed energy or novelty (e.g. the energy gate opened).
+     * @param nowNanos Current time on the {@link System#nanoTime()} base.
+     * @return samples until the next hop.
+     */
+    public int onHop(boolean activity, long nowNanos) {
+        long elapsed = nowNanos - lastHopNanos;
+        lastHopNanos = nowNanos;
+        timeInMode.addAndGet(mode.ordinal(), elapsed);
+        int backoff = backoffPercent;
+        if (backoff > 100) {
+            throttledNanos.addAndGet(elapsed);
+        }
+
+        Mode next = mode;
+        if (activity || candidatePending) {
+            candidatePending = false;
+            lastActivityNanos = nowNanos;
+            next = Mode.ACTIVE;
+        } else if (nowNanos - lastActivityNanos >= quietAfterNanos) {
+            next = Mode.QUIET;
+        }
+        if (next != mode) {
+            mode = next;
+            currentMode = next;
+            modeSwitches.incrementAndGet();
+        }
+
+        int base = mode == Mode.ACTIVE ? activeHop : quietHop;
+        hopSize = (int) Math.min(maxHop, (long) base * backoff / 100);
+        return hopSize;
+    }
+
+    /**
+     * Report that the classifier saw a candidate class (e.g. an alert group close to its threshold).
+     * Keeps, or puts, the controller in {@link Mode#ACTIVE} from the next decision.
+     */
+    public void onCandidate() {
+        candidatePending = true;
+    }
+
+    /**
+     * Update the power backoff. Hops are stretched 1.5x when the battery is at or below 30%
+     * (2x at 15%) and not charging, and 1.5x at moderate (2x at severe or worse) thermal status;
+     * both factors multiply.
+     *
+     * @param batteryPercent Battery level, 0..100.
+     * @param charging       Whether the device is plugged in.
+     * @param thermalStatus  {@code PowerManager.THERMAL_STATUS_*} value.
+     */
+    public void setPowerState(int batteryPercent, boolean charging, int thermalStatus) {
+        int battery = 100;
+        if (!charging) {
+            if (batteryPercent <= CRITICAL_BATTERY_PERCENT) {
+                battery = 200;
+            } else if (batteryPercent <= LOW_BATTERY_PERCENT) {
+                battery = 150;
+            }
+        }
+        int thermal = 100;
+        if (thermalStatus >= THERMAL_STATUS_SEVERE) {
+            thermal = 200;
+        } else if (thermalStatus >= THERMAL_STATUS_MODERATE) {
+            thermal = 150;
+        }
+        backoffPercent = battery * thermal / 100;
+    }
+
+    public Mode getMode() {
+        return currentMode;
+    }
+
+    /**
+     * @return hop chosen by the last decision, in samples.
+     */
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    /**
+     * @return current power backoff; 100 means none, 200 means hops twice as long.
+     */
+    public int getBackoffPercent() {
+        return backoffPercent;
+    }
+
+    /**
+     * @return time spent in {@code mode} up to the last decision, in nanoseconds.
+     */
+    public long getTimeInMode(Mode mode) {
+        return timeInMode.get(mode.ordinal());
+    }
+
+    /**
+     * @return time spent with a power backoff in effect, in nanoseconds.
+     */
+    public long getThrottledNanos() {
+        return throttledNanos.get();
+    }
+
+    public long getModeSwitchCount() {
+        return modeSwitches.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DutyCycleController{mode=" + currentMode + ", hop=" + hopSize + ", backoff=" + backoffPercent
+                + "%, active=" + getTimeInMode(Mode.ACTIVE) / 1000000000L + "s, quiet=" + getTimeInMode(Mode.QUIET) / 1000000000L
+                + "s, throttled=" + throttledNanos.get() / 1000000000L + "s, switches=" + modeSwitches.get() + "}";
+    }
+}
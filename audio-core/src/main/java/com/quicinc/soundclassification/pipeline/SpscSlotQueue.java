@@ -0,0 +1,299 @@
+package com.quicinc.soundclassification.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded hand-off between exactly one producer thread and one consumer thread, over slots that
+ * are allocated once up front and recycled.
+ *
+ * The producer {@link #claim() claims} a free slot, fills it in place and {@link #publish() publishes}
+ * it; the consumer {@link #take() takes} slots in order and owns each one until its next take (or
+ * {@link #release()}). Nothing is copied and nothing is allocated per item.
+ *
+ * When {@code capacity} items are waiting and the consumer is busy with another, the producer is
+ * behind a slow stage and the {@link DropPolicy} decides what happens. Apart from
+ * {@link DropPolicy#BLOCK} and an empty {@link #take()}, no operation waits or locks.
+ *
+ * @param <T> Slot type, mutated in place by the producer.
+ */
+public final class SpscSlotQueue<T> {
+    /**
+     * What the producer does when the queue is full.
+     */
+    public enum DropPolicy {
+        /** Wait for the consumer. Never use this where the producer must keep up with real time. */
+        BLOCK,
+        /** Discard the new item: {@link #claim()} returns null. */
+        DROP_NEWEST,
+        /** Discard the oldest waiting item and reuse its slot for the new one. */
+        DROP_OLDEST
+    }
+
+    private final Object[] slots;
+    private final int slotCount;
+    private final DropPolicy dropPolicy;
+
+    // Slot index of each published position, indexed by position % slotCount.
+    private final AtomicIntegerArray queue;
+    // Next position to take. Advanced by the consumer, and by the producer when it drops the oldest item.
+    private final AtomicLong head = new AtomicLong();
+    // Next position to publish. Written by the producer only.
+    private volatile long tail;
+
+    // Slots given back by the consumer, in the order they were released.
+    private final AtomicIntegerArray freeSlots;
+    private volatile long freeHead;
+    private volatile long freeTail;
+
+    private int producerSlot = -1;
+    private int consumerSlot = -1;
+
+    private volatile Thread waitingProducer;
+    private volatile Thread waitingConsumer;
+    private volatile boolean closed;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity   Items that can wait while the consumer works on another one. At least 1.
+     * @param dropPolicy What to do when the producer finds the queue full.
+     * @param slotFactory Creates the {@code capacity + 1} preallocated slots.
+     */
+    public SpscSlotQueue(int capacity, DropPolicy dropPolicy, Supplier<T> slotFactory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.slotCount = capacity + 1;
+        this.dropPolicy = dropPolicy;
+        this.slots = new Object[slotCount];
+        this.queue = new AtomicIntegerArray(slotCount);
+        this.freeSlots = new AtomicIntegerArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = slotFactory.get();
+            freeSlots.set(i, i);
+        }
+        this.freeTail = slotCount;
+    }
+
+    /**
+     * Producer: get the slot to fill with the next item. Claiming again before {@link #publish()}
+     * returns the same slot.
+     *
+     * @return the slot, or null if the item must be dropped (full under {@link DropPolicy#DROP_NEWEST}, or closed).
+     * @throws InterruptedException If interrupted while waiting under {@link DropPolicy#BLOCK}.
+     */
+    public T claim() throws InterruptedException {
+        return claim(dropPolicy);
+    }
+
+    /**
+     * Producer: like {@link #claim()}, but with a drop policy for this item only, e.g. to wait for
+     * room for an item that must not be lost on a queue that otherwise drops.
+     *
+     * @return the slot, or null if the item must be dropped (full under {@link DropPolicy#DROP_NEWEST}, or closed).
+     * @throws InterruptedException If interrupted while waiting under {@link DropPolicy#BLOCK}.
+     */
+    @SuppressWarnings("unchecked")
+    public T claim(DropPolicy policy) throws InterruptedException {
+        if (producerSlot >= 0) {
+            return (T) slots[producerSlot];
+        }
+        while (!closed) {
+            T claimed = tryClaim();
+            if (claimed != null) {
+                return claimed;
+            }
+            switch (policy) {
+                case DROP_NEWEST:
+                    dropped.incrementAndGet();
+                    return null;
+                case DROP_OLDEST:
+                    // Take over the oldest waiting slot, unless the consumer takes it first.
+                    long h = head.get();
+                    if (h < tail) {
+                        int slot = queue.get((int) (h % slotCount));
+                        if (head.compareAndSet(h, h + 1)) {
+                            dropped.incrementAndGet();
+                            producerSlot = slot;
+                            return (T) slots[slot];
+                        }
+                    }
+                    break;
+                case BLOCK:
+                    waitingProducer = Thread.currentThread();
+                    if (freeHead == freeTail && !closed) {
+                        LockSupport.park(this);
+                    }
+                    waitingProducer = null;
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Producer: like {@link #claim()}, but never waits or drops; lets the producer decide what to do
+     * with an item that does not fit.
+     *
+     * @return the slot, or null if no slot is free or the queue is closed.
+     */
+    @SuppressWarnings("unchecked")
+    public T tryClaim() {
+        if (producerSlot >= 0) {
+            return (T) slots[producerSlot];
+        }
+        long fh = freeHead;
+        if (closed || fh == freeTail) {
+            return null;
+        }
+        producerSlot = freeSlots.get((int) (fh % slotCount));
+        freeHead = fh + 1;
+        return (T) slots[producerSlot];
+    }
+
+    /**
+     * Producer: hand the claimed slot to the consumer.
+     *
+     * @throws IllegalStateException If no slot is claimed.
+     */
+    public void publish() {
+        if (producerSlot < 0) {
+            throw new IllegalStateException("No slot claimed");
+        }
+        long t = tail;
+        queue.set((int) (t % slotCount), producerSlot);
+        producerSlot = -1;
+        tail = t + 1;
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Consumer: release the previous slot and wait for the next item.
+     *
+     * @return the oldest waiting item, or null once the queue is closed and drained.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public T take() throws InterruptedException {
+        return poll(Long.MAX_VALUE);
+    }
+
+    /**
+     * Consumer: release the previous slot and wait up to {@code timeout} for the next item.
+     *
+     * @return the oldest waiting item, or null on timeout or once the queue is closed and drained.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return poll(unit.toNanos(timeout));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll(long timeoutNanos) throws InterruptedException {
+        release();
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            long h = head.get();
+            if (h < tail) {
+                int slot = queue.get((int) (h % slotCount));
+                if (head.compareAndSet(h, h + 1)) {
+                    consumerSlot = slot;
+                    return (T) slots[slot];
+                }
+                // The producer dropped this item; try the next one.
+                continue;
+            }
+            if (closed) {
+                return null;
+            }
+            long remaining = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (head.get() == tail && !closed) {
+                if (remaining == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+            waitingConsumer = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Consumer: give the current slot back before the next take, so the producer can reuse it sooner.
+     * Does nothing if no slot is held.
+     */
+    public void release() {
+        if (consumerSlot < 0) {
+            return;
+        }
+        long ft = freeTail;
+        freeSlots.set((int) (ft % slotCount), consumerSlot);
+        consumerSlot = -1;
+        freeTail = ft + 1;
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Stop accepting items. The consumer still receives what was published, then null.
+     */
+    public void close() {
+        closed = true;
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return number of published items not yet taken.
+     */
+    public int size() {
+        return (int) (tail - head.get());
+    }
+
+    /**
+     * @return items discarded by the drop policy since creation.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return items published since creation, including ones dropped later.
+     */
+    public long getPublishedCount() {
+        return tail;
+    }
+
+    @Override
+    public String toString() {
+        return "SpscSlotQueue{policy=" + dropPolicy + ", waiting=" + size() + ", published=" + tail
+                + ", dropped=" + dropped.get() + "}";
+    }
+}
@@ -0,0 +1,181 @@
+package com.quicinc.soundclassification.postprocess;
+
+import java.util.Arrays;
+
+/**
+ * Turns per-window score vectors into alert onsets and offsets per label group.
+ *
+ * Class scores are smoothed with an exponential moving average (one float per class, O(1) per class
+ * per update). Each group's score is the max of its smoothed class scores and drives a hysteresis
+ * state machine:
+ * <ul>
+ *   <li>onset once the score has stayed at or above the group threshold for {@code minDurationSamples},
+ *       and at least {@code cooldownSamples} have passed since the group's last offset;</li>
+ *   <li>offset once the score has stayed below {@code releaseRatio * threshold} for {@code minDurationSamples}.</li>
+ * </ul>
+ * Only transitions are reported, so a sound that lasts a minute produces two callbacks instead of
+ * one per window. All state is in preallocated primitive arrays; updates do not allocate.
+ *
+ * Not thread-safe; owned by the classification thread.
+ */
+public class EventDetector {
+    /**
+     * Receives group state transitions on the updating thread.
+     */
+    public interface TransitionListener {
+        /**
+         * @param group    Group index in the {@link LabelGroupMatcher}.
+         * @param score    Smoothed group score at onset.
+         * @param position Stream position (in samples) of the window that confirmed the onset.
+         */
+        void onEventStart(int group, float score, long position);
+
+        /**
+         * @param group    Group index in the {@link LabelGroupMatcher}.
+         * @param position Stream position (in samples) of the window that confirmed the offset.
+         */
+        void onEventEnd(int group, long position);
+    }
+
+    private final LabelGroupMatcher groups;
+    private final float smoothing;
+    private final float releaseRatio;
+    private final long minDurationSamples;
+    private final long cooldownSamples;
+
+    private final float[] smoothedScores;
+    private final float[] groupScores;
+    private final boolean[] active;
+    // Position where the score last crossed into the opposite state, or -1 if it has not.
+    private final long[] crossedAt;
+    private final long[] cooldownUntil;
+    private int activeCount;
+
+    /**
+     * @param numClasses         Length of the score vectors passed to {@link #update}.
+     * @param groups             Groups to track; each group's threshold is its onset threshold.
+     * @param smoothing          EMA weight of the newest window, in (0, 1]. 1 disables smoothing.
+     * @param releaseRatio       Offset threshold as a fraction of the onset threshold, in (0, 1].
+     * @param minDurationSamples How long a score must stay across a threshold before the state changes.
+     * @param cooldownSamples    Minimum gap between a group's offset and its next onset.
+     */
+    public EventDetector(int numClasses, LabelGroupMatcher groups, float smoothing, float releaseRatio,
+                         long minDurationSamples, long cooldownSamples) {
+        if (smoothing <= 0 || smoothing > 1 || releaseRatio <= 0 || releaseRatio > 1) {
+            throw new IllegalArgumentException("Invalid smoothing " + smoothing + " / release ratio " + releaseRatio);
+        }
+        this.groups = groups;
+        this.smoothing = smoothing;
+        this.releaseRatio = releaseRatio;
+        this.minDurationSamples = minDurationSamples;
+        this.cooldownSamples = cooldownSamples;
+
+        smoothedScores = new float[numClasses];
+        groupScores = new float[groups.size()];
+        active = new boolean[groups.size()];
+        crossedAt = new long[groups.size()];
+        cooldownUntil = new long[groups.size()];
+        reset();
+    }
+
+    /**
+     * Forget all history. Active groups are dropped without an offset callback.
+     */
+    public void reset() {
+        Arrays.fill(smoothedScores, 0);
+        Arrays.fill(groupScores, 0);
+        Arrays.fill(active, false);
+        Arrays.fill(crossedAt, -1);
+        Arrays.fill(cooldownUntil, Long.MIN_VALUE);
+        activeCount = 0;
+    }
+
+    /**
+     * Feed the model output for one window.
+     *
+     * @param scores   Per-class scores.
+     * @param position Stream position of the window, in samples. Must not decrease between calls.
+     */
+    public void update(float[] scores, long position, TransitionListener listener) {
+        for (int i = 0; i < smoothedScores.length; i++) {
+            smoothedScores[i] += smoothing * (scores[i] - smoothedScores[i]);
+        }
+        evaluate(position, listener);
+    }
+
+    /**
+     * Advance the detector through a window that was not classified (e.g. skipped as silence),
+     * treating it as scoring zero for every class.
+     */
+    public void decay(long position, TransitionListener listener) {
+        float keep = 1 - smoothing;
+        for (int i = 0; i < smoothedScores.length; i++) {
+            smoothedScores[i] *= keep;
+        }
+        evaluate(position, listener);
+    }
+
+    private void evaluate(long position, TransitionListener listener) {
+        for (int g = 0; g < groupScores.length; g++) {
+            float score = groups.groupScore(smoothedScores, g);
+            groupScores[g] = score;
+
+            float threshold = groups.getThreshold(g);
+            boolean crossing = active[g] ? score < threshold * releaseRatio : score >= threshold;
+            if (!crossing) {
+                crossedAt[g] = -1;
+                continue;
+            }
+            if (crossedAt[g] < 0) {
+                crossedAt[g] = position;
+            }
+            if (position - crossedAt[g] < minDurationSamples) {
+                continue;
+            }
+
+            if (!active[g]) {
+                if (position < cooldownUntil[g]) {
+                    continue;
+                }
+                active[g] = true;
+                activeCount++;
+                crossedAt[g] = -1;
+                listener.onEventStart(g, score, position);
+            } else {
+                active[g] = false;
+                activeCount--;
+                crossedAt[g] = -1;
+                cooldownUntil[g] = position + cooldownSamples;
+                listener.onEventEnd(g, position);
+            }
+        }
+    }
+
+    /**
+     * @return whether a group is currently in an active (alerting) state.
+     */
+    public boolean isActive(int group) {
+        return active[group];
+    }
+
+    /**
+     * @return number of groups currently active.
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return smoothed score of a group as of the last update.
+     */
+    public float getGroupScore(int group) {
+        return groupScores[group];
+    }
+
+    /**
+     * @return smoothed per-class scores as of the last update. Do not modify.
+     */
+    public float[] getSmoothedScores() {
+        return smoothedScores;
+    }
+}
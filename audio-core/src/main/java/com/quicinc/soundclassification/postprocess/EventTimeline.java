@@ -0,0 +1,120 @@
+package com.quicinc.soundclassification.postprocess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Run-length encoded timeline of when each label group was heard in a recording.
+ *
+ * Consecutive windows in which a group reaches its threshold are merged into one segment, so the
+ * timeline grows with the number of distinct events, not with the length of the recording. A gap
+ * of up to {@code mergeGapSamples} between two runs of the same group is bridged.
+ *
+ * Not thread-safe.
+ */
+public class EventTimeline {
+    /**
+     * One continuous occurrence of a group. Positions are in samples from the start of the stream.
+     */
+    public static class Segment {
+        public final int group;
+        public final String name;
+        public final long startSample;
+        public final long endSample;
+        public final float peakScore;
+
+        Segment(int group, String name, long startSample, long endSample, float peakScore) {
+            this.group = group;
+            this.name = name;
+            this.startSample = startSample;
+            this.endSample = endSample;
+            this.peakScore = peakScore;
+        }
+
+        @Override
+        public String toString() {
+            return name + " [" + startSample + ", " + endSample + ") peak=" + peakScore;
+        }
+    }
+
+    private final LabelGroupMatcher groups;
+    private final int windowSize;
+    private final long mergeGapSamples;
+    private final List<Segment> segments = new ArrayList<>();
+
+    // Open run per group; openStart < 0 when the group is not running.
+    private final long[] openStart;
+    private final long[] openEnd;
+    private final float[] openPeak;
+
+    /**
+     * @param groups          Groups to track, with their thresholds.
+     * @param windowSize      Samples covered by one window; a matching window spans
+     *                        [startSample, startSample + windowSize).
+     * @param mergeGapSamples Largest gap between two runs of the same group that is still merged.
+     */
+    public EventTimeline(LabelGroupMatcher groups, int windowSize, long mergeGapSamples) {
+        this.groups = groups;
+        this.windowSize = windowSize;
+        this.mergeGapSamples = mergeGapSamples;
+        openStart = new long[groups.size()];
+        openEnd = new long[groups.size()];
+        openPeak = new float[groups.size()];
+        reset();
+    }
+
+    public void reset() {
+        segments.clear();
+        for (int g = 0; g < openStart.length; g++) {
+            openStart[g] = -1;
+        }
+    }
+
+    /**
+     * Add the scores of one window. Windows must arrive in stream order.
+     */
+    public void add(float[] scores, long startSample) {
+        long endSample = startSample + windowSize;
+        for (int g = 0; g < openStart.length; g++) {
+            float score = groups.groupScore(scores, g);
+            if (score < groups.getThreshold(g)) {
+                continue;
+            }
+            if (openStart[g] >= 0 && startSample > openEnd[g] + mergeGapSamples) {
+                close(g);
+            }
+            if (openStart[g] < 0) {
+                openStart[g] = startSample;
+                openPeak[g] = score;
+            } else if (score > openPeak[g]) {
+                openPeak[g] = score;
+            }
+            openEnd[g] = endSample;
+        }
+    }
+
+    private void close(int g) {
+        segments.add(new Segment(g, groups.getName(g), openStart[g], openEnd[g], openPeak[g]));
+        openStart[g] = -1;
+    }
+
+    /**
+     * Close all open runs. Call once after the last window.
+     */
+    public void finish() {
+        for (int g = 0; g < openStart.length; g++) {
+            if (openStart[g] >= 0) {
+                close(g);
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(a.startSample, b.startSample));
+    }
+
+    /**
+     * @return closed segments, ordered by start after {@link #finish()}.
+     */
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+}
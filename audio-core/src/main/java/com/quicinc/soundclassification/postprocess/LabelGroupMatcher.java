@@ -0,0 +1,175 @@
+package com.quicinc.soundclassification.postprocess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert groups (siren, horn, alarm, ...) compiled against a model's label list.
+ *
+ * Each group is a set of class indices plus a score threshold. Groups are defined in a text config
+ * (see {@link #parseRules}) and resolved to indices once, so matching a score vector is an integer
+ * scan over each group's classes with no string work. Adding a group only needs a config change.
+ */
+public class LabelGroupMatcher {
+    /**
+     * One group definition, before it is resolved against a label list.
+     */
+    public static class Rule {
+        final String name;
+        final float threshold;
+        final List<String> labels;
+
+        public Rule(String name, float threshold, List<String> labels) {
+            this.name = name;
+            this.threshold = threshold;
+            this.labels = labels;
+        }
+    }
+
+    private final String[] names;
+    private final float[] thresholds;
+    private final int[][] classIndices;
+
+    private LabelGroupMatcher(String[] names, float[] thresholds, int[][] classIndices) {
+        this.names = names;
+        this.thresholds = thresholds;
+        this.classIndices = classIndices;
+    }
+
+    /**
+     * Parse group definitions, one per line:
+     * {@code <name> ; <threshold> ; <label> | <label> | ...}.
+     * Blank lines and lines starting with {@code #} are ignored.
+     *
+     * @throws IOException If reading fails.
+     * @throws IllegalArgumentException If a line is malformed.
+     */
+    public static List<Rule> parseRules(BufferedReader reader) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(";");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Malformed label group: " + line);
+            }
+            List<String> labels = new ArrayList<>();
+            for (String label : fields[2].split("\\|")) {
+                labels.add(label.trim());
+            }
+            rules.add(new Rule(fields[0].trim(), Float.parseFloat(fields[1].trim()), labels));
+        }
+        return rules;
+    }
+
+    /**
+     * Resolve rules against a model's labels.
+     *
+     * @param modelLabels Labels indexed like the model output. Surrounding quotes are ignored.
+     * @param rules       Group definitions.
+     * @throws IllegalArgumentException If a rule names a label the model does not have.
+     */
+    public static LabelGroupMatcher compile(List<String> modelLabels, List<Rule> rules) {
+        Map<String, Integer> indexByLabel = new HashMap<>();
+        for (int i = 0; i < modelLabels.size(); i++) {
+            indexByLabel.put(unquote(modelLabels.get(i)), i);
+        }
+
+        String[] names = new String[rules.size()];
+        float[] thresholds = new float[rules.size()];
+        int[][] classIndices = new int[rules.size()][];
+        for (int g = 0; g < rules.size(); g++) {
+            Rule rule = rules.get(g);
+            names[g] = rule.name;
+            thresholds[g] = rule.threshold;
+            classIndices[g] = new int[rule.labels.size()];
+            for (int j = 0; j < rule.labels.size(); j++) {
+                Integer index = indexByLabel.get(unquote(rule.labels.get(j)));
+                if (index == null) {
+                    throw new IllegalArgumentException("Label group '" + rule.name + "' references unknown label: " + rule.labels.get(j));
+                }
+                classIndices[g][j] = index;
+            }
+        }
+        return new LabelGroupMatcher(names, thresholds, classIndices);
+    }
+
+    private static String unquote(String label) {
+        if (label.length() >= 2 && label.startsWith("\"") && label.endsWith("\"")) {
+            return label.substring(1, label.length() - 1);
+        }
+        return label;
+    }
+
+    /**
+     * @return number of groups.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int group) {
+        return names[group];
+    }
+
+    public float getThreshold(int group) {
+        return thresholds[group];
+    }
+
+    /**
+     * @return class indices that belong to a group. Do not modify.
+     */
+    public int[] getClassIndices(int group) {
+        return classIndices[group];
+    }
+
+    /**
+     * @return highest score among the group's classes.
+     */
+    public float groupScore(float[] scores, int group) {
+        int[] indices = classIndices[group];
+        float best = Float.NEGATIVE_INFINITY;
+        for (int index : indices) {
+            if (scores[index] > best) {
+                best = scores[index];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score every group and pick the strongest one over its threshold.
+     *
+     * @param scores      Model output.
+     * @param groupScores Receives each group's score (max over its classes). Length must be at least {@link #size()}.
+     * @return index of the group with the highest score among those reaching their threshold, or -1 if none.
+     */
+    public int match(float[] scores, float[] groupScores) {
+        int bestGroup = -1;
+        for (int g = 0; g < names.length; g++) {
+            float score = groupScore(scores, g);
+            groupScores[g] = score;
+            if (score >= thresholds[g] && (bestGroup < 0 || score > groupScores[bestGroup])) {
+                bestGroup = g;
+            }
+        }
+        return bestGroup;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LabelGroupMatcher{");
+        for (int g = 0; g < names.length; g++) {
+            sb.append(g == 0 ? "" : ", ").append(names[g]).append(Arrays.toString(classIndices[g]));
+        }
+        return sb.append('}').toString();
+    }
+}
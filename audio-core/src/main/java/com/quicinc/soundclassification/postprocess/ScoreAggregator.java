@@ -0,0 +1,231 @@
+package com.quicinc.soundclassification.postprocess;
+
+import java.util.Arrays;
+
+/**
+ * Reduces a stream of per-window score vectors to one score per class.
+ *
+ * Every aggregator keeps a fixed amount of state per class, so memory does not grow with the number
+ * of windows: an hour-long recording costs the same as a ten-second one. Adding a window does not
+ * allocate.
+ *
+ * Not thread-safe.
+ */
+public abstract class ScoreAggregator {
+    protected final int numClasses;
+    protected final float[] result;
+    protected int windowCount;
+
+    ScoreAggregator(int numClasses) {
+        this.numClasses = numClasses;
+        this.result = new float[numClasses];
+    }
+
+    /**
+     * Arithmetic mean of each class over all windows.
+     */
+    public static ScoreAggregator mean(int numClasses) {
+        return new Mean(numClasses);
+    }
+
+    /**
+     * Highest score of each class in any window (max-pooling).
+     */
+    public static ScoreAggregator max(int numClasses) {
+        return new Max(numClasses);
+    }
+
+    /**
+     * Approximate {@code percentile} (0..1) of each class over all windows, e.g. 0.9 for the score
+     * exceeded by the top 10% of windows. More robust to single-window spikes than {@link #max}.
+     * Scores are assumed to lie in [0, 1] and are binned at a resolution of 0.01.
+     */
+    public static ScoreAggregator percentile(int numClasses, float percentile) {
+        return new Percentile(numClasses, percentile);
+    }
+
+    /**
+     * Number of windows in which each class scored at or above {@code threshold}.
+     */
+    public static ScoreAggregator countAbove(int numClasses, float threshold) {
+        return new CountAbove(numClasses, threshold);
+    }
+
+    /**
+     * Fold in the scores of one window.
+     */
+    public void add(float[] scores) {
+        accumulate(scores);
+        windowCount++;
+    }
+
+    abstract void accumulate(float[] scores);
+
+    /**
+     * @return aggregated score per class, or null if no window was added.
+     *         The array is reused by the next call.
+     */
+    public float[] result() {
+        if (windowCount == 0) {
+            return null;
+        }
+        computeResult();
+        return result;
+    }
+
+    abstract void computeResult();
+
+    /**
+     * Forget all windows.
+     */
+    public void reset() {
+        windowCount = 0;
+        Arrays.fill(result, 0);
+        clear();
+    }
+
+    abstract void clear();
+
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    private static final class Mean extends ScoreAggregator {
+        private final double[] sum;
+
+        Mean(int numClasses) {
+            super(numClasses);
+            sum = new double[numClasses];
+        }
+
+        @Override
+        void accumulate(float[] scores) {
+            for (int i = 0; i < numClasses; i++) {
+                sum[i] += scores[i];
+            }
+        }
+
+        @Override
+        void computeResult() {
+            for (int i = 0; i < numClasses; i++) {
+                result[i] = (float) (sum[i] / windowCount);
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(sum, 0);
+        }
+    }
+
+    private static final class Max extends ScoreAggregator {
+        private final float[] max;
+
+        Max(int numClasses) {
+            super(numClasses);
+            max = new float[numClasses];
+            clear();
+        }
+
+        @Override
+        void accumulate(float[] scores) {
+            for (int i = 0; i < numClasses; i++) {
+                if (scores[i] > max[i]) {
+                    max[i] = scores[i];
+                }
+            }
+        }
+
+        @Override
+        void computeResult() {
+            System.arraycopy(max, 0, result, 0, numClasses);
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        }
+    }
+
+    private static final class Percentile extends ScoreAggregator {
+        private static final int BINS = 100;
+
+        private final float percentile;
+        // Row-major [class][bin] histogram of scores.
+        private final int[] histogram;
+
+        Percentile(int numClasses, float percentile) {
+            super(numClasses);
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("Percentile must be in [0, 1]: " + percentile);
+            }
+            this.percentile = percentile;
+            histogram = new int[numClasses * BINS];
+        }
+
+        @Override
+        void accumulate(float[] scores) {
+            for (int i = 0; i < numClasses; i++) {
+                int bin = (int) (scores[i] * BINS);
+                bin = bin < 0 ? 0 : (bin >= BINS ? BINS - 1 : bin);
+                histogram[i * BINS + bin]++;
+            }
+        }
+
+        @Override
+        void computeResult() {
+            // Rank (1-based) of the percentile among the sorted window scores.
+            long rank = Math.max(1, (long) Math.ceil(percentile * windowCount));
+            for (int i = 0; i < numClasses; i++) {
+                int base = i * BINS;
+                long seen = 0;
+                int bin = 0;
+                while (bin < BINS - 1 && (seen += histogram[base + bin]) < rank) {
+                    bin++;
+                }
+                result[i] = (bin + 0.5f) / BINS;
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(histogram, 0);
+        }
+    }
+
+    private static final class CountAbove extends ScoreAggregator {
+        private final float threshold;
+        private final int[] counts;
+
+        CountAbove(int numClasses, float threshold) {
+            super(numClasses);
+            this.threshold = threshold;
+            counts = new int[numClasses];
+        }
+
+        @Override
+        void accumulate(float[] scores) {
+            for (int i = 0; i < numClasses; i++) {
+                if (scores[i] >= threshold) {
+                    counts[i]++;
+                }
+            }
+        }
+
+        @Override
+        void computeResult() {
+            for (int i = 0; i < numClasses; i++) {
+                result[i] = counts[i];
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(counts, 0);
+        }
+    }
+}
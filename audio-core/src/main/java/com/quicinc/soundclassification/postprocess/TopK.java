@@ -0,0 +1,50 @@
+package com.quicinc.soundclassification.postprocess;
+
+/**
+ * Primitive top-K selection over a score vector.
+ *
+ * Keeps a sorted insertion array of the best {@code k} candidates, so selection is a single pass
+ * with no boxing, no comparator and no allocation. Intended for small {@code k} (a handful of classes
+ * out of a few hundred); cost is O(n * k) in the worst case and close to O(n) in practice.
+ */
+public final class TopK {
+    private TopK() {
+    }
+
+    /**
+     * Select the highest scores, best first.
+     *
+     * @param scores         Score vector to search.
+     * @param k              Maximum number of results. Must not exceed the output buffer lengths.
+     * @param minScore       Scores below this value are never selected. Use {@code Float.NEGATIVE_INFINITY} to disable.
+     * @param outIndices     Receives the selected indices into {@code scores}, best first.
+     * @param outScores      Receives the selected scores, best first.
+     * @return number of results written (less than {@code k} if fewer scores reach {@code minScore}).
+     */
+    public static int select(float[] scores, int k, float minScore, int[] outIndices, float[] outScores) {
+        if (k > outIndices.length || k > outScores.length) {
+            throw new IllegalArgumentException("Output buffers too small for top-" + k);
+        }
+        if (k <= 0) {
+            return 0;
+        }
+        int size = 0;
+        for (int i = 0; i < scores.length; i++) {
+            float score = scores[i];
+            // Cheap reject: below the threshold, or no better than the current k-th best.
+            if (score < minScore || (size == k && score <= outScores[k - 1])) {
+                continue;
+            }
+
+            int pos = size == k ? k - 1 : size++;
+            while (pos > 0 && outScores[pos - 1] < score) {
+                outScores[pos] = outScores[pos - 1];
+                outIndices[pos] = outIndices[pos - 1];
+                pos--;
+            }
+            outScores[pos] = score;
+            outIndices[pos] = i;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,98 @@
+package com.quicinc.soundclassification.postprocess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable holder for the top-K classes of a score vector: indices, scores and labels, best first.
+ *
+ * One instance is meant to be kept per consumer and refilled with {@link #select}; refilling does not
+ * allocate. Not thread-safe.
+ */
+public class TopKResult {
+    private final List<String> labels;
+    private final int[] indices;
+    private final float[] scores;
+    private int size;
+
+    /**
+     * @param labels Class labels, indexed like the score vectors this result will be filled from.
+     * @param k      Maximum number of classes to keep.
+     */
+    public TopKResult(List<String> labels, int k) {
+        this.labels = labels;
+        this.indices = new int[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * Refill with the best classes of {@code classScores}.
+     *
+     * @return this, for chaining.
+     */
+    public TopKResult select(float[] classScores) {
+        return select(classScores, Float.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Refill with the best classes of {@code classScores} that score at least {@code minScore}.
+     *
+     * @return this, for chaining.
+     */
+    public TopKResult select(float[] classScores, float minScore) {
+        size = TopK.select(classScores, indices.length, minScore, indices, scores);
+        return this;
+    }
+
+    /**
+     * @return number of classes held (at most k).
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return class index of the i-th best result.
+     */
+    public int index(int i) {
+        checkIndex(i);
+        return indices[i];
+    }
+
+    /**
+     * @return score of the i-th best result.
+     */
+    public float score(int i) {
+        checkIndex(i);
+        return scores[i];
+    }
+
+    /**
+     * @return label of the i-th best result.
+     */
+    public String label(int i) {
+        checkIndex(i);
+        return labels.get(indices[i]);
+    }
+
+    /**
+     * @return a new list of the held labels, best first. Allocates; keep off the hot path.
+     */
+    public List<String> toLabelList() {
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(labels.get(indices[i]));
+        }
+        return result;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of " + size + " results");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.quicinc.soundclassification.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class EnergyGateTest {
+    private static final int FFT_SIZE = 64;
+    private static final int BLOCK = 8 * FFT_SIZE;
+
+    private static float[] noise(Random random, float amplitude) {
+        float[] samples = new float[BLOCK];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (random.nextGaussian() * amplitude);
+        }
+        return samples;
+    }
+
+    private static float[] tone(int bin, float amplitude) {
+        float[] samples = new float[BLOCK];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (Math.sin(2 * Math.PI * bin * i / FFT_SIZE) * amplitude * Math.sqrt(2));
+        }
+        return samples;
+    }
+
+    private static boolean feed(EnergyGate gate, float[] block) {
+        gate.begin();
+        gate.accept(block, 0, block.length);
+        return gate.end();
+    }
+
+    @Test
+    public void spectrumPeaksAtToneBin() {
+        PowerSpectrum spectrum = new PowerSpectrum(FFT_SIZE);
+        assertEquals(FFT_SIZE / 2 + 1, spectrum.getBinCount());
+        float[] power = spectrum.compute(tone(8, 0.5f), 0);
+        int peak = 0;
+        for (int i = 1; i < power.length; i++) {
+            if (power[i] > power[peak]) {
+                peak = i;
+            }
+        }
+        assertEquals(8, peak);
+        // Hann leakage stays next to the peak.
+        assertTrue(power[20] < power[8] * 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void spectrumRejectsNonPowerOfTwo() {
+        new PowerSpectrum(48);
+    }
+
+    @Test
+    public void loudBlockOpensGateAndHangoverKeepsItOpen() {
+        Random random = new Random(1);
+        EnergyGate gate = new EnergyGate(FFT_SIZE, 6, 0.9, 2);
+        for (int i = 0; i < 5; i++) {
+            assertFalse(feed(gate, noise(random, 0.01f)));
+        }
+        assertTrue(feed(gate, noise(random, 0.1f)));
+        assertEquals(-20, gate.getLastEnergyDb(), 1);
+        assertTrue(feed(gate, noise(random, 0.01f)));
+        assertTrue(feed(gate, noise(random, 0.01f)));
+        assertFalse(feed(gate, noise(random, 0.01f)));
+        assertEquals(6, gate.getClosedBlocks());
+        assertEquals(3, gate.getOpenBlocks());
+    }
+
+    @Test
+    public void tonalBlockOpensGateAtBackgroundLevel() {
+        Random random = new Random(2);
+        EnergyGate gate = new EnergyGate(FFT_SIZE, 100, 0.25, 0);
+        for (int i = 0; i < 5; i++) {
+            assertFalse(feed(gate, noise(random, 0.01f)));
+        }
+        assertTrue(feed(gate, tone(8, 0.01f)));
+        assertTrue(gate.getLastFlatness() < 0.1);
+    }
+
+    @Test
+    public void blockWithoutEndIsDiscardedByNextBegin() {
+        Random random = new Random(3);
+        EnergyGate gate = new EnergyGate(FFT_SIZE, 6, 0.9, 0);
+        for (int i = 0; i < 5; i++) {
+            feed(gate, noise(random, 0.01f));
+        }
+        double floor = gate.getNoiseFloorDb();
+
+        // A failed ring read: loud samples were seen, but end() is never called.
+        float[] loud = noise(random, 0.5f);
+        gate.begin();
+        gate.accept(loud, 0, loud.length);
+
+        assertFalse(feed(gate, noise(random, 0.01f)));
+        assertEquals(floor, gate.getNoiseFloorDb(), 1);
+        assertEquals(0, gate.getOpenBlocks());
+    }
+}
@@ -0,0 +1,100 @@
+package com.quicinc.soundclassification.audio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HopSchedulerTest {
+    private static long next(HopScheduler scheduler) throws InterruptedException {
+        return scheduler.awaitHop(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void firstHopEndsAtWindowThenEveryHopSize() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 4, 4);
+        assertEquals(8, scheduler.samplesUntilNextHop(0));
+        scheduler.onPublished(7);
+        assertEquals(-1, next(scheduler));
+
+        scheduler.onPublished(8);
+        assertEquals(8, next(scheduler));
+        scheduler.onPublished(17);
+        assertEquals(12, next(scheduler));
+        assertEquals(16, next(scheduler));
+        assertEquals(-1, next(scheduler));
+        assertEquals(3, scheduler.samplesUntilNextHop(17));
+        assertEquals(3, scheduler.getHopsScheduled());
+    }
+
+    @Test
+    public void dropsOldestHopsWhenConsumerFallsBehind() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 4, 2);
+        scheduler.onPublished(20);
+        assertEquals(4, scheduler.getHopsScheduled());
+        assertEquals(2, scheduler.getHopsDropped());
+        assertEquals(16, next(scheduler));
+        assertEquals(20, next(scheduler));
+    }
+
+    @Test
+    public void shorterHopIsReplannedFromLastHop() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 16, 4);
+        scheduler.onPublished(10);
+        assertEquals(8, next(scheduler));
+        assertEquals(14, scheduler.samplesUntilNextHop(10));
+
+        // Takes effect now, not after the pending long hop ending at 24.
+        scheduler.setHopSize(4);
+        assertEquals(4, scheduler.getHopSize());
+        assertEquals(2, scheduler.samplesUntilNextHop(10));
+        scheduler.onPublished(12);
+        assertEquals(12, next(scheduler));
+    }
+
+    @Test
+    public void longerHopIsReplannedFromLastHop() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 4, 4);
+        scheduler.onPublished(8);
+        assertEquals(8, next(scheduler));
+        scheduler.setHopSize(10);
+        scheduler.onPublished(17);
+        assertEquals(-1, next(scheduler));
+        scheduler.onPublished(18);
+        assertEquals(18, next(scheduler));
+    }
+
+    @Test
+    public void hopSizeChangeBeforeFirstHopKeepsWindowBoundary() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 4, 4);
+        scheduler.setHopSize(2);
+        scheduler.onPublished(10);
+        assertEquals(8, next(scheduler));
+        assertEquals(10, next(scheduler));
+    }
+
+    @Test
+    public void closeReleasesWaitingConsumer() throws InterruptedException {
+        HopScheduler scheduler = new HopScheduler(8, 4, 4);
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            scheduler.close();
+        });
+        closer.start();
+        assertEquals(-1, scheduler.awaitHop());
+        closer.join();
+
+        scheduler.onPublished(8);
+        assertEquals(-1, scheduler.awaitHop());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveHopSize() {
+        new HopScheduler(8, 4, 4).setHopSize(0);
+    }
+}
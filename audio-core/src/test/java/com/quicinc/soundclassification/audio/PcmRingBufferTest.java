@@ -0,0 +1,140 @@
+package com.quicinc.soundclassification.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PcmRingBufferTest {
+    private static float[] ramp(long start, int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = start + i;
+        }
+        return samples;
+    }
+
+    /** Collects visited segments into one array. */
+    private static final class Collector implements PcmRingBuffer.SegmentConsumer {
+        final float[] samples;
+        int filled;
+
+        Collector(int length) {
+            samples = new float[length];
+        }
+
+        @Override
+        public void accept(float[] source, int offset, int length) {
+            System.arraycopy(source, offset, samples, filled, length);
+            filled += length;
+        }
+    }
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(64, new PcmRingBuffer(50, 8).capacity());
+        assertEquals(64, new PcmRingBuffer(64, 8).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void guardMustBeSmallerThanCapacity() {
+        new PcmRingBuffer(16, 16);
+    }
+
+    @Test
+    public void readAcrossWrapReturnsSamplesInOrder() {
+        PcmRingBuffer ring = new PcmRingBuffer(16, 4);
+        for (long position = 0; position < 40; position += 4) {
+            ring.write(ramp(position, 4), 0, 4);
+        }
+        Collector collector = new Collector(10);
+        assertTrue(ring.read(28, 10, collector));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(28 + i, collector.samples[i], 0);
+        }
+    }
+
+    @Test
+    public void readRejectsUnwrittenAndOverwrittenRanges() {
+        PcmRingBuffer ring = new PcmRingBuffer(16, 4);
+        ring.write(ramp(0, 12), 0, 12);
+        assertFalse(ring.read(8, 8, new Collector(8)));
+
+        ring.write(ramp(12, 12), 0, 12);
+        // 24 written, 16 held, the oldest 4 are treated as being overwritten.
+        assertEquals(12, ring.oldestReadablePosition());
+        assertFalse(ring.read(11, 4, new Collector(4)));
+        assertTrue(ring.read(12, 12, new Collector(12)));
+    }
+
+    @Test
+    public void shortSamplesAreScaledToUnitRange() {
+        PcmRingBuffer ring = new PcmRingBuffer(8, 2);
+        ring.write(new short[] {Short.MIN_VALUE, 0, 16384}, 0, 3);
+        Collector collector = new Collector(3);
+        assertTrue(ring.read(0, 3, collector));
+        assertEquals(-1f, collector.samples[0], 0);
+        assertEquals(0f, collector.samples[1], 0);
+        assertEquals(0.5f, collector.samples[2], 0);
+    }
+
+    @Test
+    public void readerSkipsOverrunAndCountsDroppedSamples() {
+        PcmRingBuffer ring = new PcmRingBuffer(16, 4);
+        PcmRingBuffer.Reader reader = ring.newReader();
+        ring.write(ramp(0, 32), 0, 32);
+
+        Collector collector = new Collector(4);
+        assertEquals(4, reader.poll(4, collector));
+        long oldest = 32 - 16 + 4;
+        assertEquals(oldest, reader.droppedSamples());
+        assertEquals(oldest, collector.samples[0], 0);
+        assertEquals(oldest + 4, reader.position());
+    }
+
+    @Test
+    public void concurrentReaderNeverSeesTornAudio() throws InterruptedException {
+        PcmRingBuffer ring = new PcmRingBuffer(256, 16);
+        long total = 2_000_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            float[] chunk = new float[16];
+            for (long position = 0; position < total; position += chunk.length) {
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = (position + i) % 1_000_000;
+                }
+                ring.write(chunk, 0, chunk.length);
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            PcmRingBuffer.Reader reader = ring.newReader();
+            Collector collector = new Collector(64);
+            while (reader.position() < total && failure.get() == null) {
+                collector.filled = 0;
+                int n = reader.poll(64, collector);
+                if (n == 0) {
+                    Thread.yield();
+                    continue;
+                }
+                // Only a successful poll promises intact audio.
+                long start = reader.position() - n;
+                for (int i = 0; i < n; i++) {
+                    if (collector.samples[i] != (start + i) % 1_000_000) {
+                        failure.compareAndSet(null, new AssertionError("At " + (start + i) + ": " + collector.samples[i]));
+                    }
+                }
+            }
+        });
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join(10_000);
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
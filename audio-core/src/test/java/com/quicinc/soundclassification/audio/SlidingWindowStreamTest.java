@@ -0,0 +1,96 @@
+package com.quicinc.soundclassification.audio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SlidingWindowStreamTest {
+    /** Records each window's start, and checks the window holds the ramp value of every position. */
+    private static final class Recorder implements SlidingWindowStream.WindowListener {
+        final List<Long> starts = new ArrayList<>();
+        final int windowSize;
+        final float scale;
+
+        Recorder(int windowSize, float scale) {
+            this.windowSize = windowSize;
+            this.scale = scale;
+        }
+
+        @Override
+        public void onWindow(float[] samples, int offset, long startSample) {
+            for (int i = 0; i < windowSize; i++) {
+                assertEquals((startSample + i) * scale, samples[offset + i], 0);
+            }
+            starts.add(startSample);
+        }
+    }
+
+    private static float[] ramp(int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = i;
+        }
+        return samples;
+    }
+
+    @Test
+    public void emitsContiguousWindowsAcrossPushBoundaries() {
+        Recorder recorder = new Recorder(6, 1);
+        SlidingWindowStream stream = new SlidingWindowStream(6, 4, recorder);
+        float[] samples = ramp(23);
+        // Pushes of every size, including ones that wrap the mirrored buffer mid-copy.
+        int[] pushes = {1, 5, 3, 7, 2, 5};
+        int offset = 0;
+        for (int length : pushes) {
+            stream.push(samples, offset, length);
+            offset += length;
+        }
+        assertEquals(Arrays.asList(0L, 4L, 8L, 12L, 16L), recorder.starts);
+        assertEquals(23, stream.getSamplesPushed());
+    }
+
+    @Test
+    public void strideLongerThanWindowSkipsTheGap() {
+        Recorder recorder = new Recorder(4, 1);
+        SlidingWindowStream stream = new SlidingWindowStream(4, 10, recorder);
+        float[] samples = ramp(30);
+        stream.push(samples, 0, samples.length);
+        assertEquals(Arrays.asList(0L, 10L, 20L), recorder.starts);
+    }
+
+    @Test
+    public void convertsPcm16() {
+        Recorder recorder = new Recorder(4, 1 / 32768.0f);
+        SlidingWindowStream stream = new SlidingWindowStream(4, 2, recorder);
+        short[] samples = new short[9];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) i;
+        }
+        stream.push(samples, 0, 3);
+        stream.push(samples, 3, 6);
+        assertEquals(Arrays.asList(0L, 2L, 4L), recorder.starts);
+    }
+
+    @Test
+    public void resetDropsBufferedAudio() {
+        List<Long> starts = new ArrayList<>();
+        SlidingWindowStream stream = new SlidingWindowStream(4, 2,
+                (samples, offset, startSample) -> starts.add(startSample));
+        stream.push(new float[3], 0, 3);
+        stream.reset();
+        assertEquals(0, stream.getSamplesPushed());
+        stream.push(new float[3], 0, 3);
+        assertEquals(0, starts.size());
+        stream.push(new float[1], 0, 1);
+        assertEquals(Arrays.asList(0L), starts);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveStride() {
+        new SlidingWindowStream(4, 0, (samples, offset, startSample) -> { });
+    }
+}
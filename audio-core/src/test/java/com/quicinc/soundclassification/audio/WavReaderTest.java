@@ -0,0 +1,126 @@
+package com.quicinc.soundclassification.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class WavReaderTest {
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Build a WAV file. {@code extraChunk} (odd-sized, to test padding) is placed before the data chunk;
+     * {@code declaredDataBytes} overrides the data chunk size, as left by an interrupted recorder.
+     */
+    private File wav(int format, int channels, int bits, byte[] data, boolean extraChunk, long declaredDataBytes) throws IOException {
+        boolean extensible = format == FORMAT_EXTENSIBLE;
+        ByteBuffer b = ByteBuffer.allocate(128 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        b.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        b.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(extensible ? 40 : 16);
+        b.putShort((short) format).putShort((short) channels).putInt(16000)
+                .putInt(16000 * channels * bits / 8).putShort((short) (channels * bits / 8)).putShort((short) bits);
+        if (extensible) {
+            // cbSize, valid bits, channel mask, then the sub-format GUID starting with the real format code.
+            b.putShort((short) 22).putShort((short) bits).putInt(0).putShort((short) FORMAT_IEEE_FLOAT).put(new byte[14]);
+        }
+        if (extraChunk) {
+            b.put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(3).put(new byte[] {1, 2, 3, 0});
+        }
+        b.put("data".getBytes(StandardCharsets.US_ASCII)).putInt((int) declaredDataBytes).put(data);
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.copyOf(b.array(), b.position()));
+        return file;
+    }
+
+    private static byte[] pcm16(short... samples) {
+        ByteBuffer b = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short s : samples) {
+            b.putShort(s);
+        }
+        return b.array();
+    }
+
+    private static byte[] float32(float... samples) {
+        ByteBuffer b = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float s : samples) {
+            b.putFloat(s);
+        }
+        return b.array();
+    }
+
+    @Test
+    public void readsMonoPcm16AfterPaddedChunk() throws IOException {
+        byte[] data = pcm16((short) 0, (short) 16384, Short.MIN_VALUE);
+        try (WavReader reader = WavReader.open(wav(FORMAT_PCM, 1, 16, data, true, data.length))) {
+            assertEquals(WavReader.Encoding.PCM_16, reader.getEncoding());
+            assertEquals(16000, reader.getSampleRate());
+            assertEquals(3, reader.getFrameCount());
+            float[] samples = new float[4];
+            assertEquals(3, reader.read(samples, 0, 4));
+            assertEquals(0.5f, samples[1], 0);
+            assertEquals(-1f, samples[2], 0);
+            assertEquals(-1, reader.read(samples, 0, 4));
+        }
+    }
+
+    @Test
+    public void downmixesExtensibleFloatStereo() throws IOException {
+        byte[] data = float32(0.25f, 0.75f, -1f, 0f);
+        try (WavReader reader = WavReader.open(wav(FORMAT_EXTENSIBLE, 2, 32, data, false, data.length))) {
+            assertEquals(WavReader.Encoding.PCM_FLOAT, reader.getEncoding());
+            assertEquals(2, reader.getChannels());
+            assertEquals(2, reader.getFrameCount());
+            float[] samples = new float[2];
+            reader.seek(1);
+            assertEquals(1, reader.read(samples, 0, 2));
+            assertEquals(-0.5f, samples[0], 0);
+        }
+    }
+
+    @Test
+    public void bogusDataSizeIsClampedToFileLength() throws IOException {
+        byte[] data = pcm16((short) 1, (short) 2);
+        try (WavReader reader = WavReader.open(wav(FORMAT_PCM, 1, 16, data, false, 0xFFFFFFFFL))) {
+            assertEquals(2, reader.getFrameCount());
+        }
+    }
+
+    @Test
+    public void headerlessFileIsRawPcm16() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), pcm16((short) 8192, (short) -8192));
+        try (WavReader reader = WavReader.open(file)) {
+            assertEquals(WavReader.RAW_PCM_SAMPLE_RATE, reader.getSampleRate());
+            float[] samples = new float[2];
+            assertEquals(2, reader.read(samples, 0, 2));
+            assertEquals(0.25f, samples[0], 0);
+            assertEquals(-0.25f, samples[1], 0);
+        }
+    }
+
+    @Test
+    public void unsupportedEncodingIsRejected() throws IOException {
+        File file = wav(FORMAT_PCM, 1, 24, new byte[6], false, 6);
+        try {
+            WavReader.open(file).close();
+            fail("24-bit PCM should be rejected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
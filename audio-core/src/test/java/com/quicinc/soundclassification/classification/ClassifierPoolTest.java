@@ -0,0 +1,95 @@
+package com.quicinc.soundclassification.classification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class ClassifierPoolTest {
+    private static final class FakeClassifier implements WindowClassifier, AutoCloseable {
+        boolean closed;
+
+        @Override
+        public int getWindowSize() {
+            return 4;
+        }
+
+        @Override
+        public int getNumClasses() {
+            return 1;
+        }
+
+        @Override
+        public float[] runInference(float[] samples, int offset, int length) {
+            return new float[1];
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void leaseIsExclusiveUntilReturned() throws InterruptedException {
+        FakeClassifier a = new FakeClassifier();
+        FakeClassifier b = new FakeClassifier();
+        ClassifierPool<FakeClassifier> pool = new ClassifierPool<>(Arrays.asList(a, b));
+
+        ClassifierPool<FakeClassifier>.Lease first = pool.acquire();
+        ClassifierPool<FakeClassifier>.Lease second = pool.acquire(1, TimeUnit.SECONDS);
+        assertNotSame(first.get(), second.get());
+        assertEquals(0, pool.getIdleCount());
+        assertNull(pool.acquire(10, TimeUnit.MILLISECONDS));
+
+        FakeClassifier returned = first.get();
+        first.close();
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+        try (ClassifierPool<FakeClassifier>.Lease third = pool.acquire()) {
+            assertSame(returned, third.get());
+        }
+        assertEquals(3, pool.getAcquireCount());
+        assertTrue(pool.getUtilization() > 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void returnedLeaseCannotBeUsed() throws InterruptedException {
+        ClassifierPool<FakeClassifier> pool = new ClassifierPool<>(Arrays.asList(new FakeClassifier()));
+        ClassifierPool<FakeClassifier>.Lease lease = pool.acquire();
+        lease.close();
+        lease.get();
+    }
+
+    @Test
+    public void closeClosesIdleMembersNowAndLeasedOnesOnReturn() throws InterruptedException {
+        FakeClassifier a = new FakeClassifier();
+        FakeClassifier b = new FakeClassifier();
+        ClassifierPool<FakeClassifier> pool = new ClassifierPool<>(Arrays.asList(a, b));
+        ClassifierPool<FakeClassifier>.Lease lease = pool.acquire();
+        FakeClassifier leased = lease.get();
+        FakeClassifier idle = leased == a ? b : a;
+
+        pool.close();
+        assertTrue(idle.closed);
+        assertFalse(leased.closed);
+        lease.close();
+        assertTrue(leased.closed);
+        assertEquals(0, pool.getIdleCount());
+
+        try {
+            pool.acquire();
+            fail("acquire after close");
+        } catch (IllegalStateException expected) {
+            // closed
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.quicinc.soundclassification.classification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.quicinc.soundclassification.audio.WavReader;
+import com.quicinc.soundclassification.postprocess.ScoreAggregator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelSlidingWindowInferenceTest {
+    private static final int WINDOW = 8;
+    private static final int STRIDE = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Scores a window with its first sample, after checking it is a contiguous ramp; fails if used by two threads. */
+    private static final class RampClassifier implements WindowClassifier, AutoCloseable {
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private final float step;
+        boolean closed;
+
+        RampClassifier(float step) {
+            this.step = step;
+        }
+
+        @Override
+        public int getWindowSize() {
+            return WINDOW;
+        }
+
+        @Override
+        public int getNumClasses() {
+            return 1;
+        }
+
+        @Override
+        public float[] runInference(float[] samples, int offset, int length) {
+            assertTrue("classifier shared between threads", busy.compareAndSet(false, true));
+            try {
+                for (int i = 1; i < length; i++) {
+                    assertEquals("window spliced", samples[offset] + i * step, samples[offset + i], 0);
+                }
+                return new float[] {samples[offset] / step};
+            } finally {
+                busy.set(false);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static List<RampClassifier> classifiers(int count, float step) {
+        List<RampClassifier> classifiers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            classifiers.add(new RampClassifier(step));
+        }
+        return classifiers;
+    }
+
+    @Test
+    public void deliversEveryWindowInOrderLikeTheSerialPath() throws InterruptedException {
+        float[] audio = new float[60];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = i;
+        }
+        List<Long> serial = new ArrayList<>();
+        new StreamingSoundClassification(new RampClassifier(1), STRIDE,
+                (scores, startSample) -> serial.add(startSample)).push(audio, 5, 50);
+
+        List<Long> parallel = new ArrayList<>();
+        try (ParallelSlidingWindowInference inference = new ParallelSlidingWindowInference(classifiers(3, 1), STRIDE, 2)) {
+            ParallelSlidingWindowInference.Report report = inference.analyze(audio, 5, 50, 16000,
+                    (scores, startSample) -> {
+                        assertEquals(startSample + 5, (long) scores[0]);
+                        parallel.add(startSample);
+                    });
+            assertEquals(15, report.windows);
+            assertEquals(50, report.samples);
+        }
+        assertEquals(serial, parallel);
+    }
+
+    @Test
+    public void streamsRecordingFromReaderPosition() throws IOException, InterruptedException {
+        ByteBuffer pcm = ByteBuffer.allocate(2 * 40).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 40; i++) {
+            pcm.putShort((short) i);
+        }
+        File file = folder.newFile();
+        Files.write(file.toPath(), pcm.array());
+
+        List<Long> starts = new ArrayList<>();
+        ScoreAggregator max = ScoreAggregator.max(1);
+        try (WavReader reader = WavReader.open(file);
+             ParallelSlidingWindowInference inference = new ParallelSlidingWindowInference(classifiers(2, 1 / 32768.0f), STRIDE, 3)) {
+            reader.seek(4);
+            inference.analyze(reader, (scores, startSample) -> {
+                assertEquals(startSample + 4, scores[0], 1e-3f);
+                starts.add(startSample);
+                max.add(scores);
+            });
+            assertEquals(40, reader.getPosition());
+        }
+        assertEquals(Arrays.asList(0L, 3L, 6L, 9L, 12L, 15L, 18L, 21L, 24L, 27L), starts);
+        assertEquals(31, max.result()[0], 1e-3f);
+    }
+
+    @Test
+    public void shortRecordingHasNoWindows() throws InterruptedException {
+        try (ParallelSlidingWindowInference inference = new ParallelSlidingWindowInference(classifiers(2, 1), STRIDE, 2)) {
+            ParallelSlidingWindowInference.Report report = inference.analyze(new float[WINDOW - 1], 0, WINDOW - 1, 16000,
+                    (scores, startSample) -> { throw new AssertionError("no window expected"); });
+            assertEquals(0, report.windows);
+        }
+    }
+
+    @Test
+    public void closeClosesClassifiers() {
+        List<RampClassifier> classifiers = classifiers(2, 1);
+        ParallelSlidingWindowInference inference = new ParallelSlidingWindowInference(classifiers, STRIDE, 2);
+        assertEquals(2, inference.getParallelism());
+        assertFalse(classifiers.get(0).closed);
+        inference.close();
+        assertTrue(classifiers.get(0).closed);
+        assertTrue(classifiers.get(1).closed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsClassifiersWithDifferentWindows() {
+        WindowClassifier other = new WindowClassifier() {
+            @Override
+            public int getWindowSize() {
+                return WINDOW * 2;
+            }
+
+            @Override
+            public int getNumClasses() {
+                return 1;
+            }
+
+            @Override
+            public float[] runInference(float[] samples, int offset, int length) {
+                return new float[1];
+            }
+        };
+        new ParallelSlidingWindowInference(Arrays.asList(new RampClassifier(1), other), STRIDE, 2);
+    }
+}
@@ -0,0 +1,46 @@
+package com.quicinc.soundclassification.classification;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StreamingSoundClassificationTest {
+    /** Reports the first sample of each window, and fails on any window that is not a contiguous ramp. */
+    private static final class RampClassifier implements WindowClassifier {
+        @Override
+        public int getWindowSize() {
+            return 8;
+        }
+
+        @Override
+        public int getNumClasses() {
+            return 1;
+        }
+
+        @Override
+        public float[] runInference(float[] samples, int offset, int length) {
+            for (int i = 1; i < length; i++) {
+                assertEquals("window spliced", samples[offset] + i, samples[offset + i], 0);
+            }
+            return new float[] {samples[offset]};
+        }
+    }
+
+    @Test
+    public void windowsAreStrideApart() {
+        List<Long> starts = new ArrayList<>();
+        StreamingSoundClassification stream = new StreamingSoundClassification(new RampClassifier(), 4,
+                (scores, startSample) -> starts.add(startSample));
+        float[] samples = new float[20];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i;
+        }
+        stream.push(samples, 0, 7);
+        stream.push(samples, 7, 13);
+        assertEquals(Arrays.asList(0L, 4L, 8L, 12L), starts);
+    }
+}
@@ -0,0 +1,69 @@
+package com.quicinc.soundclassification.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest {
+    @Test
+    public void everyValueFallsInsideItsBucket() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(40));
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= 0 && bucket < LatencyHistogram.BUCKET_COUNT);
+            if (bucket == LatencyHistogram.BUCKET_COUNT - 1) {
+                continue;
+            }
+            assertTrue(value + " above bucket " + bucket, value <= LatencyHistogram.bucketUpperBound(bucket));
+            if (bucket > 0) {
+                assertTrue(value + " below bucket " + bucket, value > LatencyHistogram.bucketUpperBound(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+            long first = LatencyHistogram.bucketUpperBound(bucket - 1) + 1;
+            assertEquals(bucket, LatencyHistogram.bucketOf(first));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.bucketUpperBound(bucket)));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(2);
+        long[] values = new long[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1_000 + (long) (Math.abs(random.nextGaussian()) * 5_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        for (double percentile : new double[] {50, 95, 99}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long reported = snapshot.getPercentile(percentile);
+            assertTrue(percentile + ": " + reported + " vs " + exact, reported >= exact && reported <= exact * 1.125);
+        }
+    }
+
+    @Test
+    public void snapshotAndResetStartsNewInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(-5);
+        LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+        assertEquals(2, first.getCount());
+        assertEquals(5, first.getMean());
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getP99());
+    }
+}
@@ -0,0 +1,59 @@
+package com.quicinc.soundclassification.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DeadlineSchedulerTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void coalescesWhenFresherWindowWaits() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(1000 * MS, 2);
+        assertFalse(scheduler.admit(0, 10 * MS, true));
+        assertTrue(scheduler.admit(0, 10 * MS, false));
+        assertEquals(1, scheduler.getCoalescedCount());
+        assertEquals(1, scheduler.getAdmittedCount());
+    }
+
+    @Test
+    public void dropsLateWindowsButNeverStarves() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(1000 * MS, 2);
+        scheduler.completed(0, 0, 300 * MS, 500 * MS);
+        // 800 ms of lag plus 300 ms of expected processing misses the 1 s budget.
+        assertFalse(scheduler.admit(0, 800 * MS, false));
+        assertFalse(scheduler.admit(0, 800 * MS, false));
+        assertTrue(scheduler.admit(0, 800 * MS, false));
+        assertEquals(2, scheduler.getDroppedLateCount());
+        // A timely window resets the streak.
+        assertTrue(scheduler.admit(0, 100 * MS, false));
+    }
+
+    @Test
+    public void unknownCaptureTimeIsAlwaysAdmitted() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(MS, 0);
+        scheduler.completed(Long.MIN_VALUE, 0, 10 * MS, 500 * MS);
+        assertTrue(scheduler.admit(Long.MIN_VALUE, 100 * MS, false));
+        assertEquals(0, scheduler.getLateCompletionCount());
+    }
+
+    @Test
+    public void realTimeFactorFollowsTheHop() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(1000 * MS, 2);
+        scheduler.completed(0, 0, 100 * MS, 500 * MS);
+        assertEquals(0.2, scheduler.getRealTimeFactor(), 1e-9);
+        for (int i = 0; i < 100; i++) {
+            scheduler.completed(0, 0, 100 * MS, 2000 * MS);
+        }
+        assertEquals(0.05, scheduler.getRealTimeFactor(), 1e-6);
+    }
+
+    @Test
+    public void countsCompletionsPastTheDeadline() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(1000 * MS, 2);
+        scheduler.completed(0, 900 * MS, 1100 * MS, 500 * MS);
+        assertEquals(1, scheduler.getLateCompletionCount());
+    }
+}
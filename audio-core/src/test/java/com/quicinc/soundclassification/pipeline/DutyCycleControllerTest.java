@@ -0,0 +1,63 @@
+package com.quicinc.soundclassification.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DutyCycleControllerTest {
+    private static final long S = 1_000_000_000L;
+    private static final int ACTIVE = 8000;
+    private static final int QUIET = 32000;
+    private static final int MAX = 59000;
+
+    private static DutyCycleController controller() {
+        return new DutyCycleController(ACTIVE, QUIET, MAX, 10 * S, 0);
+    }
+
+    @Test
+    public void goesQuietAfterInactivityAndBackOnActivity() {
+        DutyCycleController controller = controller();
+        assertEquals(ACTIVE, controller.onHop(false, 5 * S));
+        assertEquals(QUIET, controller.onHop(false, 10 * S));
+        assertEquals(DutyCycleController.Mode.QUIET, controller.getMode());
+        assertEquals(ACTIVE, controller.onHop(true, 12 * S));
+        assertEquals(DutyCycleController.Mode.ACTIVE, controller.getMode());
+        assertEquals(2, controller.getModeSwitchCount());
+    }
+
+    @Test
+    public void candidateKeepsControllerActive() {
+        DutyCycleController controller = controller();
+        controller.onCandidate();
+        assertEquals(ACTIVE, controller.onHop(false, 10 * S));
+        assertEquals(ACTIVE, controller.onHop(false, 19 * S));
+        assertEquals(QUIET, controller.onHop(false, 20 * S));
+    }
+
+    @Test
+    public void accumulatesTimeInEachMode() {
+        DutyCycleController controller = controller();
+        controller.onHop(false, 10 * S);
+        controller.onHop(false, 25 * S);
+        controller.onHop(true, 26 * S);
+        assertEquals(10 * S, controller.getTimeInMode(DutyCycleController.Mode.ACTIVE));
+        assertEquals(16 * S, controller.getTimeInMode(DutyCycleController.Mode.QUIET));
+    }
+
+    @Test
+    public void powerBackoffStretchesHopsUpToTheMaximum() {
+        DutyCycleController controller = controller();
+        controller.setPowerState(25, false, 0);
+        assertEquals(150, controller.getBackoffPercent());
+        assertEquals(ACTIVE * 3 / 2, controller.onHop(true, S));
+
+        controller.setPowerState(10, true, DutyCycleController.THERMAL_STATUS_MODERATE);
+        assertEquals(150, controller.getBackoffPercent());
+
+        controller.setPowerState(10, false, DutyCycleController.THERMAL_STATUS_SEVERE);
+        assertEquals(400, controller.getBackoffPercent());
+        assertEquals(ACTIVE * 4, controller.onHop(true, 2 * S));
+        assertEquals(MAX, controller.onHop(false, 20 * S));
+        assertEquals(20 * S, controller.getThrottledNanos());
+    }
+}
@@ -0,0 +1,163 @@
+package com.quicinc.soundclassification.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SpscSlotQueueTest {
+    private static final class Item {
+        long value;
+    }
+
+    private static void offer(SpscSlotQueue<Item> queue, long value) throws InterruptedException {
+        Item item = queue.claim();
+        if (item != null) {
+            item.value = value;
+            queue.publish();
+        }
+    }
+
+    @Test
+    public void itemsArriveInOrder() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(3, SpscSlotQueue.DropPolicy.DROP_NEWEST, Item::new);
+        offer(queue, 1);
+        offer(queue, 2);
+        offer(queue, 3);
+        assertEquals(1, queue.take().value);
+        assertEquals(2, queue.take().value);
+        assertEquals(3, queue.take().value);
+        assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void dropNewestRejectsWhenFull() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(1, SpscSlotQueue.DropPolicy.DROP_NEWEST, Item::new);
+        offer(queue, 1);
+        assertEquals(1, queue.take().value);
+        // The consumer still holds its slot, so one item fits.
+        offer(queue, 2);
+        assertNull(queue.claim());
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(2, queue.take().value);
+    }
+
+    @Test
+    public void dropOldestReplacesWaitingItem() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(2, SpscSlotQueue.DropPolicy.DROP_OLDEST, Item::new);
+        offer(queue, 1);
+        Item held = queue.take();
+        offer(queue, 2);
+        offer(queue, 3);
+        offer(queue, 4);
+        // The held item is never reused while the consumer owns it.
+        assertEquals(1, held.value);
+        assertEquals(3, queue.take().value);
+        assertEquals(4, queue.take().value);
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void tryClaimNeverDrops() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(1, SpscSlotQueue.DropPolicy.DROP_OLDEST, Item::new);
+        offer(queue, 1);
+        offer(queue, 2);
+        assertNull(queue.tryClaim());
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals(1, queue.take().value);
+        // Taking the next item gives the first slot back.
+        assertEquals(2, queue.take().value);
+        Item item = queue.tryClaim();
+        assertNotNull(item);
+        assertSame(item, queue.tryClaim());
+    }
+
+    @Test
+    public void closeWakesConsumerAfterDrain() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(2, SpscSlotQueue.DropPolicy.BLOCK, Item::new);
+        offer(queue, 1);
+        queue.close();
+        assertNull(queue.claim());
+        assertEquals(1, queue.take().value);
+        assertNull(queue.take());
+        assertTrue(queue.isClosed());
+    }
+
+    @Test(timeout = 60_000)
+    public void blockingHandOffKeepsEveryItemInOrder() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(4, SpscSlotQueue.DropPolicy.BLOCK, Item::new);
+        long count = 500_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                long expected = 0;
+                Item item;
+                while ((item = queue.take()) != null) {
+                    if (item.value != expected++) {
+                        failure.compareAndSet(null, new AssertionError("Expected " + (expected - 1) + ", got " + item.value));
+                    }
+                }
+                if (expected != count) {
+                    failure.compareAndSet(null, new AssertionError("Received " + expected + " of " + count));
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        consumer.start();
+        for (long i = 0; i < count; i++) {
+            offer(queue, i);
+        }
+        queue.close();
+        consumer.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test(timeout = 60_000)
+    public void droppingHandOffKeepsOrderAndAccountsForEveryItem() throws InterruptedException {
+        SpscSlotQueue<Item> queue = new SpscSlotQueue<>(2, SpscSlotQueue.DropPolicy.DROP_OLDEST, Item::new);
+        long count = 500_000;
+        long[] consumed = new long[1];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                long last = -1;
+                Item item;
+                while ((item = queue.take()) != null) {
+                    long value = item.value;
+                    // Slow down now and then so the producer has to drop.
+                    if ((value & 1023) == 0) {
+                        Thread.sleep(0, 100_000);
+                    }
+                    if (value <= last) {
+                        failure.compareAndSet(null, new AssertionError("Got " + value + " after " + last));
+                    }
+                    last = value;
+                    consumed[0]++;
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        consumer.start();
+        for (long i = 0; i < count; i++) {
+            offer(queue, i);
+        }
+        queue.close();
+        consumer.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(count, queue.getPublishedCount());
+        assertEquals(count, consumed[0] + queue.getDroppedCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.quicinc.soundclassification.postprocess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EventDetectorTest {
+    private static final List<String> LABELS = Arrays.asList("Speech", "\"Siren\"", "Car horn", "Vehicle horn");
+
+    /** Records transitions as "start:<group>@<position>" and "end:<group>@<position>". */
+    private static final class Recorder implements EventDetector.TransitionListener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onEventStart(int group, float score, long position) {
+            events.add("start:" + group + "@" + position);
+        }
+
+        @Override
+        public void onEventEnd(int group, long position) {
+            events.add("end:" + group + "@" + position);
+        }
+    }
+
+    private static LabelGroupMatcher groups() throws IOException {
+        String config = "# test groups\n"
+                + "siren ; 0.5 ; Siren\n"
+                + "\n"
+                + "horn ; 0.4 ; Car horn | Vehicle horn\n";
+        return LabelGroupMatcher.compile(LABELS, LabelGroupMatcher.parseRules(new BufferedReader(new StringReader(config))));
+    }
+
+    private static float[] scores(float siren, float carHorn) {
+        return new float[] {0, siren, carHorn, 0};
+    }
+
+    @Test
+    public void groupScoreIsMaxOfItsClasses() throws IOException {
+        LabelGroupMatcher groups = groups();
+        assertEquals(2, groups.size());
+        assertEquals("horn", groups.getName(1));
+        assertEquals(0.7f, groups.groupScore(new float[] {0.9f, 0.1f, 0.2f, 0.7f}, 1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownLabelIsRejected() {
+        LabelGroupMatcher.compile(LABELS, Arrays.asList(new LabelGroupMatcher.Rule("dog", 0.5f, Arrays.asList("Bark"))));
+    }
+
+    @Test
+    public void onsetAndOffsetNeedMinimumDurationAndHysteresis() throws IOException {
+        EventDetector detector = new EventDetector(LABELS.size(), groups(), 1, 0.5f, 1000, 5000);
+        Recorder recorder = new Recorder();
+
+        detector.update(scores(0.8f, 0), 0, recorder);
+        detector.update(scores(0.8f, 0), 500, recorder);
+        assertTrue(recorder.events.isEmpty());
+        detector.update(scores(0.8f, 0), 1000, recorder);
+        assertEquals(Arrays.asList("start:0@1000"), recorder.events);
+        assertEquals(1, detector.getActiveCount());
+
+        // Between the release (0.25) and onset (0.5) thresholds: stays active.
+        detector.update(scores(0.3f, 0), 1500, recorder);
+        detector.update(scores(0.3f, 0), 3000, recorder);
+        assertTrue(detector.isActive(0));
+
+        detector.update(scores(0.1f, 0), 3500, recorder);
+        detector.update(scores(0.1f, 0), 4500, recorder);
+        assertEquals(Arrays.asList("start:0@1000", "end:0@4500"), recorder.events);
+        assertFalse(detector.isActive(0));
+    }
+
+    @Test
+    public void cooldownDelaysNextOnset() throws IOException {
+        EventDetector detector = new EventDetector(LABELS.size(), groups(), 1, 0.5f, 0, 5000);
+        Recorder recorder = new Recorder();
+        detector.update(scores(0, 0.9f), 0, recorder);
+        detector.update(scores(0, 0), 1000, recorder);
+        detector.update(scores(0, 0.9f), 2000, recorder);
+        detector.update(scores(0, 0.9f), 5999, recorder);
+        detector.update(scores(0, 0.9f), 6000, recorder);
+        assertEquals(Arrays.asList("start:1@0", "end:1@1000", "start:1@6000"), recorder.events);
+    }
+
+    @Test
+    public void decayEndsEventsWithoutInference() throws IOException {
+        EventDetector detector = new EventDetector(LABELS.size(), groups(), 0.5f, 0.5f, 0, 0);
+        Recorder recorder = new Recorder();
+        detector.update(scores(1, 0), 0, recorder);
+        assertEquals(0.5f, detector.getGroupScore(0), 1e-6);
+        assertTrue(detector.isActive(0));
+        detector.decay(100, recorder);
+        assertTrue(detector.isActive(0));
+        detector.decay(200, recorder);
+        assertEquals(0.125f, detector.getGroupScore(0), 1e-6);
+        assertEquals(Arrays.asList("start:0@0", "end:0@200"), recorder.events);
+        assertEquals(0, detector.getActiveCount());
+    }
+}
@@ -0,0 +1,49 @@
+package com.quicinc.soundclassification.postprocess;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class EventTimelineTest {
+    private static final int WINDOW = 10;
+
+    private static LabelGroupMatcher groups() {
+        return LabelGroupMatcher.compile(Arrays.asList("Siren", "Car horn"), Arrays.asList(
+                new LabelGroupMatcher.Rule("siren", 0.5f, Arrays.asList("Siren")),
+                new LabelGroupMatcher.Rule("horn", 0.5f, Arrays.asList("Car horn"))));
+    }
+
+    @Test
+    public void mergesRunsAcrossSmallGapsAndSortsByStart() {
+        EventTimeline timeline = new EventTimeline(groups(), WINDOW, 5);
+        timeline.add(new float[] {0.6f, 0}, 0);
+        timeline.add(new float[] {0.8f, 0}, 5);
+        // The siren misses one window; the next run starts 5 after the last one ended, so it is merged.
+        timeline.add(new float[] {0.1f, 0.9f}, 10);
+        timeline.add(new float[] {0.7f, 0}, 20);
+        // Too far from the last siren window: a new segment.
+        timeline.add(new float[] {0.6f, 0}, 40);
+        timeline.finish();
+
+        List<EventTimeline.Segment> segments = timeline.getSegments();
+        assertEquals(3, segments.size());
+        assertEquals("siren [0, 30) peak=0.8", segments.get(0).toString());
+        assertEquals("horn [10, 20) peak=0.9", segments.get(1).toString());
+        assertEquals("siren [40, 50) peak=0.6", segments.get(2).toString());
+        assertEquals(1, segments.get(1).group);
+    }
+
+    @Test
+    public void resetForgetsSegmentsAndOpenRuns() {
+        EventTimeline timeline = new EventTimeline(groups(), WINDOW, 0);
+        timeline.add(new float[] {0.9f, 0}, 0);
+        timeline.finish();
+        timeline.add(new float[] {0, 0.9f}, 10);
+        timeline.reset();
+        timeline.finish();
+        assertEquals(0, timeline.getSegments().size());
+    }
+}
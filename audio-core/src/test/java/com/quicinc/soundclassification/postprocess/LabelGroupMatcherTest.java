@@ -0,0 +1,58 @@
+package com.quicinc.soundclassification.postprocess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+public class LabelGroupMatcherTest {
+    private static final List<String> LABELS = Arrays.asList("Speech", "\"Siren\"", "Car horn", "Vehicle horn", "Smoke detector");
+
+    private static List<LabelGroupMatcher.Rule> parse(String config) throws IOException {
+        return LabelGroupMatcher.parseRules(new BufferedReader(new StringReader(config)));
+    }
+
+    private static LabelGroupMatcher groups() throws IOException {
+        return LabelGroupMatcher.compile(LABELS, parse(
+                "# name ; threshold ; labels\n"
+                        + "  siren ; 0.5 ; \"Siren\"\n"
+                        + "\n"
+                        + "horn;0.4;Car horn|  Vehicle horn \n"
+                        + "alarm ; 0.3 ; Smoke detector\n"));
+    }
+
+    @Test
+    public void parsesRulesSkippingCommentsAndBlankLines() throws IOException {
+        LabelGroupMatcher groups = groups();
+        assertEquals(3, groups.size());
+        assertEquals("siren", groups.getName(0));
+        assertEquals(0.4f, groups.getThreshold(1), 0);
+        // Quotes on either side are ignored when resolving labels.
+        assertArrayEquals(new int[] {1}, groups.getClassIndices(0));
+        assertArrayEquals(new int[] {2, 3}, groups.getClassIndices(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMalformedLine() throws IOException {
+        parse("siren ; 0.5\n");
+    }
+
+    @Test
+    public void matchPicksStrongestGroupOverItsThreshold() throws IOException {
+        LabelGroupMatcher groups = groups();
+        float[] groupScores = new float[groups.size()];
+
+        // The siren is the highest score but below its own threshold; horn and alarm both pass.
+        assertEquals(1, groups.match(new float[] {0.9f, 0.45f, 0.1f, 0.42f, 0.35f}, groupScores));
+        assertArrayEquals(new float[] {0.45f, 0.42f, 0.35f}, groupScores, 0);
+
+        assertEquals(2, groups.match(new float[] {0, 0.2f, 0.1f, 0.1f, 0.3f}, groupScores));
+        assertEquals(-1, groups.match(new float[] {0.9f, 0.2f, 0.1f, 0.1f, 0.1f}, groupScores));
+    }
+}
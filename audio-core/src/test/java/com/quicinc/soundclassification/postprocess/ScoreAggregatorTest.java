@@ -0,0 +1,59 @@
+package com.quicinc.soundclassification.postprocess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ScoreAggregatorTest {
+    private static void addAll(ScoreAggregator aggregator, float[]... windows) {
+        for (float[] window : windows) {
+            aggregator.add(window);
+        }
+    }
+
+    @Test
+    public void meanAndMaxOverWindows() {
+        ScoreAggregator mean = ScoreAggregator.mean(2);
+        ScoreAggregator max = ScoreAggregator.max(2);
+        assertNull(mean.result());
+        float[][] windows = {{0.2f, 0.9f}, {0.4f, 0.1f}, {0.6f, 0.2f}};
+        addAll(mean, windows);
+        addAll(max, windows);
+        assertEquals(3, mean.getWindowCount());
+        assertArrayEquals(new float[] {0.4f, 0.4f}, mean.result(), 1e-6f);
+        assertArrayEquals(new float[] {0.6f, 0.9f}, max.result(), 0);
+    }
+
+    @Test
+    public void percentileIgnoresSingleSpike() {
+        ScoreAggregator p90 = ScoreAggregator.percentile(1, 0.9f);
+        for (int i = 0; i < 19; i++) {
+            p90.add(new float[] {0.2f});
+        }
+        p90.add(new float[] {1.0f});
+        assertEquals(0.205f, p90.result()[0], 1e-6f);
+
+        ScoreAggregator p100 = ScoreAggregator.percentile(1, 1);
+        addAll(p100, new float[] {0.2f}, new float[] {1.0f});
+        assertEquals(0.995f, p100.result()[0], 1e-6f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileRejectsOutOfRange() {
+        ScoreAggregator.percentile(1, 1.5f);
+    }
+
+    @Test
+    public void countAboveAndReset() {
+        ScoreAggregator count = ScoreAggregator.countAbove(2, 0.5f);
+        addAll(count, new float[] {0.5f, 0.4f}, new float[] {0.9f, 0.6f}, new float[] {0.1f, 0.7f});
+        assertArrayEquals(new float[] {2, 2}, count.result(), 0);
+
+        count.reset();
+        assertNull(count.result());
+        count.add(new float[] {0.6f, 0});
+        assertArrayEquals(new float[] {1, 0}, count.result(), 0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.quicinc.soundclassification.postprocess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TopKTest {
+    private static final List<String> LABELS = Arrays.asList("Speech", "Siren", "Dog", "Car horn", "Music");
+
+    @Test
+    public void selectsBestFirst() {
+        int[] indices = new int[3];
+        float[] scores = new float[3];
+        int n = TopK.select(new float[] {0.1f, 0.7f, 0.3f, 0.9f, 0.2f}, 3, Float.NEGATIVE_INFINITY, indices, scores);
+        assertEquals(3, n);
+        assertArrayEquals(new int[] {3, 1, 2}, indices);
+        assertArrayEquals(new float[] {0.9f, 0.7f, 0.3f}, scores, 0);
+    }
+
+    @Test
+    public void minScoreLimitsResults() {
+        int[] indices = new int[3];
+        float[] scores = new float[3];
+        int n = TopK.select(new float[] {0.1f, 0.7f, 0.3f, 0.9f, 0.2f}, 3, 0.5f, indices, scores);
+        assertEquals(2, n);
+        assertEquals(3, indices[0]);
+        assertEquals(1, indices[1]);
+    }
+
+    @Test
+    public void tiesKeepTheEarlierClass() {
+        int[] indices = new int[2];
+        float[] scores = new float[2];
+        TopK.select(new float[] {0.5f, 0.5f, 0.5f}, 2, Float.NEGATIVE_INFINITY, indices, scores);
+        assertArrayEquals(new int[] {0, 1}, indices);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOutputBuffersSmallerThanK() {
+        TopK.select(new float[4], 3, 0, new int[2], new float[3]);
+    }
+
+    @Test
+    public void resultResolvesLabelsAndIsRefilledInPlace() {
+        TopKResult result = new TopKResult(LABELS, 2);
+        assertTrue(result.select(new float[] {0.1f, 0.7f, 0.3f, 0.9f, 0.2f}) == result);
+        assertEquals(2, result.size());
+        assertEquals("Car horn", result.label(0));
+        assertEquals(1, result.index(1));
+        assertEquals(0.7f, result.score(1), 0);
+        assertEquals(Arrays.asList("Car horn", "Siren"), result.toLabelList());
+
+        result.select(new float[] {0.1f, 0.7f, 0.3f, 0.9f, 0.2f}, 0.8f);
+        assertEquals(Arrays.asList("Car horn"), result.toLabelList());
+        result.select(new float[5], 0.5f);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void resultRejectsIndexBeyondSize() {
+        TopKResult result = new TopKResult(LABELS, 3).select(new float[] {0.1f, 0.7f, 0, 0, 0}, 0.5f);
+        result.label(1);
+    }
+}
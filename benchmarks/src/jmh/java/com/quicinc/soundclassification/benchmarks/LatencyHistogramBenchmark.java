@@ -0,0 +1,51 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.metrics.LatencyHistogram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+
+/**
+ * Cost of one {@link LatencyHistogram#record(long)} on the pipeline threads, alone and contended.
+ * The gc profiler should report no allocation.
+ */
+@State(Scope.Benchmark)
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final long[] latencies = new long[1024];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < latencies.length; i++) {
+            // Roughly log-normal around 1 ms, like inference times.
+            latencies[i] = (long) Math.exp(random.nextGaussian() + 13.8);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        histogram.record(latencies[cursor.next++ & (latencies.length - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Cursor cursor) {
+        histogram.record(latencies[cursor.next++ & (latencies.length - 1)]);
+    }
+
+    @Benchmark
+    public long snapshotP99() {
+        return histogram.snapshot().getP99();
+    }
+}
@@ -0,0 +1,55 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.audio.LevelMeter;
+import com.quicinc.soundclassification.audio.PcmRingBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * RMS/dB math of {@code SoundClassificationService.calculateDecibel}: one classification tick's
+ * worth of captured audio is written to the ring and drained through a {@link LevelMeter}.
+ */
+@State(Scope.Thread)
+public class LevelMeterBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int WINDOW_SIZE = 15600;
+    // 500 ms classification interval.
+    private static final int HOP_SIZE = SAMPLE_RATE / 2;
+
+    private final float[] hop = new float[HOP_SIZE];
+    private final LevelMeter levelMeter = new LevelMeter();
+    private PcmRingBuffer ringBuffer;
+    private PcmRingBuffer.Reader levelReader;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < hop.length; i++) {
+            hop[i] = random.nextFloat() * 2 - 1;
+        }
+        ringBuffer = new PcmRingBuffer(WINDOW_SIZE * 4, SAMPLE_RATE / 10);
+        levelReader = ringBuffer.newReader();
+    }
+
+    @Benchmark
+    public double meterOnly() {
+        levelMeter.reset();
+        levelMeter.accept(hop, 0, hop.length);
+        return levelMeter.decibel();
+    }
+
+    @Benchmark
+    public double writeAndDrain() {
+        ringBuffer.write(hop, 0, hop.length);
+        levelMeter.reset();
+        while (levelReader.poll(ringBuffer.guardSize(), levelMeter) > 0) {
+            // drain everything captured since the last tick
+        }
+        return levelMeter.decibel();
+    }
+}
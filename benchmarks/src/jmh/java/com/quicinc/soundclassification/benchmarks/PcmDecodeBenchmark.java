@@ -0,0 +1,76 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.audio.PcmConversion;
+import com.quicinc.soundclassification.audio.WavReader;
+import com.quicinc.soundclassification.backups.AudioProcessing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * PCM16 decoding of {@code AudioProcessing.loadAudioFromFile}: the conversion loop alone, the
+ * whole load from a file on disk (page cache warm after the first iteration), and a stride-sized
+ * chunked read through {@link WavReader} as used for long recordings.
+ */
+@State(Scope.Thread)
+public class PcmDecodeBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int STRIDE = 7800;
+
+    @Param({"10"})
+    public int seconds;
+
+    private byte[] pcm;
+    private float[] samples;
+    private final float[] chunk = new float[STRIDE];
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        pcm = new byte[seconds * SAMPLE_RATE * 2];
+        new Random(42).nextBytes(pcm);
+        samples = new float[pcm.length / 2];
+
+        file = File.createTempFile("pcm-benchmark", ".pcm");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(pcm);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public float[] convert() {
+        PcmConversion.pcm16LeToFloat(pcm, 0, samples, 0, samples.length);
+        return samples;
+    }
+
+    @Benchmark
+    public float[] loadAudioFromFile() {
+        return AudioProcessing.loadAudioFromFile(file);
+    }
+
+    @Benchmark
+    public float chunkedRead() throws IOException {
+        float sum = 0;
+        try (WavReader reader = WavReader.open(file)) {
+            int read;
+            while ((read = reader.read(chunk, 0, chunk.length)) > 0) {
+                sum += chunk[read - 1];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,45 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.audio.PcmConversion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * {@code SoundClassification.preprocess}: peak normalization of one model window.
+ *
+ * Normalization is in place and idempotent, so each invocation starts from a fresh copy of the
+ * source window; {@link #copyOnly} measures that copy on its own.
+ */
+@State(Scope.Thread)
+public class PreprocessBenchmark {
+    private static final int WINDOW_SIZE = 15600;
+
+    private final float[] source = new float[WINDOW_SIZE];
+    private final float[] window = new float[WINDOW_SIZE];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < source.length; i++) {
+            // Peak above 1 so the scaling pass runs.
+            source[i] = (random.nextFloat() * 2 - 1) * 1.5f;
+        }
+    }
+
+    @Benchmark
+    public float[] copyOnly() {
+        System.arraycopy(source, 0, window, 0, WINDOW_SIZE);
+        return window;
+    }
+
+    @Benchmark
+    public float normalizePeak() {
+        System.arraycopy(source, 0, window, 0, WINDOW_SIZE);
+        return PcmConversion.normalizePeak(window, 0, WINDOW_SIZE);
+    }
+}
@@ -0,0 +1,52 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.postprocess.ScoreAggregator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Per-window cost of folding one YAMNet output vector into each aggregator.
+ */
+@State(Scope.Thread)
+public class ScoreAggregatorBenchmark {
+    private static final int NUM_CLASSES = 521;
+
+    @Param({"mean", "max", "percentile", "countAbove"})
+    public String kind;
+
+    private final float[] scores = new float[NUM_CLASSES];
+    private ScoreAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            scores[i] = random.nextFloat();
+        }
+        switch (kind) {
+            case "max":
+                aggregator = ScoreAggregator.max(NUM_CLASSES);
+                break;
+            case "percentile":
+                aggregator = ScoreAggregator.percentile(NUM_CLASSES, 0.9f);
+                break;
+            case "countAbove":
+                aggregator = ScoreAggregator.countAbove(NUM_CLASSES, 0.3f);
+                break;
+            default:
+                aggregator = ScoreAggregator.mean(NUM_CLASSES);
+        }
+    }
+
+    @Benchmark
+    public int add() {
+        aggregator.add(scores);
+        return aggregator.getWindowCount();
+    }
+}
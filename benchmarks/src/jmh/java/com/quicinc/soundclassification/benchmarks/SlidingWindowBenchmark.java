@@ -0,0 +1,71 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.classification.SlidingWindowInference;
+import com.quicinc.soundclassification.classification.WindowClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Window slicing and score averaging of {@code runSlidingWindowInference}, without the model.
+ *
+ * The classifier is a stand-in that returns a cheap score vector, so the benchmark measures the
+ * windowing and the running mean, not inference.
+ */
+@State(Scope.Thread)
+public class SlidingWindowBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int WINDOW_SIZE = 15600;
+    private static final int STRIDE = 7800;
+    private static final int NUM_CLASSES = 521;
+
+    @Param({"10", "60"})
+    public int seconds;
+
+    private float[] audio;
+    private WindowClassifier classifier;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        audio = new float[seconds * SAMPLE_RATE];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = random.nextFloat() * 2 - 1;
+        }
+        classifier = new StandInClassifier();
+    }
+
+    @Benchmark
+    public float[] slideAndAverage() {
+        return SlidingWindowInference.averageScores(classifier, STRIDE, audio, 0, audio.length);
+    }
+
+    private static class StandInClassifier implements WindowClassifier {
+        private final float[] scores = new float[NUM_CLASSES];
+
+        @Override
+        public int getWindowSize() {
+            return WINDOW_SIZE;
+        }
+
+        @Override
+        public int getNumClasses() {
+            return NUM_CLASSES;
+        }
+
+        @Override
+        public float[] runInference(float[] samples, int offset, int length) {
+            // Touch the window edges so slicing cannot be elided.
+            float edge = samples[offset] + samples[offset + length - 1];
+            for (int i = 0; i < NUM_CLASSES; i++) {
+                scores[i] = edge;
+            }
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.quicinc.soundclassification.benchmarks;
+
+import com.quicinc.soundclassification.postprocess.TopK;
+import com.quicinc.soundclassification.postprocess.TopKResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Top-K selection over one YAMNet output vector (formerly {@code findTopKIndices}).
+ */
+@State(Scope.Thread)
+public class TopKBenchmark {
+    private static final int NUM_CLASSES = 521;
+
+    @Param({"3", "10"})
+    public int k;
+
+    private final float[] scores = new float[NUM_CLASSES];
+    private int[] indices;
+    private float[] topScores;
+    private TopKResult result;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            scores[i] = random.nextFloat();
+            labels.add("class_" + i);
+        }
+        indices = new int[k];
+        topScores = new float[k];
+        result = new TopKResult(labels, k);
+    }
+
+    @Benchmark
+    public int select() {
+        return TopK.select(scores, k, Float.NEGATIVE_INFINITY, indices, topScores);
+    }
+
+    @Benchmark
+    public TopKResult selectResult() {
+        return result.select(scores);
+    }
+}